@@ -0,0 +1,149 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2004-, all the contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.sshslaves;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.model.Slave;
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import jenkins.model.Jenkins;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Process wide cache of the agent jar served by this controller. The jar is read and hashed once and shared by all
+ * the launches until the Jenkins core version changes.
+ */
+@Restricted(NoExternalUse.class)
+public final class AgentJarCache {
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private static volatile AgentJar current;
+
+    private AgentJarCache() {}
+
+    /**
+     * @return the agent jar of the running Jenkins core version.
+     * @throws IOException if the agent jar cannot be read.
+     */
+    @NonNull
+    public static AgentJar get() throws IOException {
+        AgentJar jar = current;
+        if (jar != null && jar.isFor(Jenkins.VERSION)) {
+            hits.incrementAndGet();
+            return jar;
+        }
+        synchronized (AgentJarCache.class) {
+            jar = current;
+            if (jar != null && jar.isFor(Jenkins.VERSION)) {
+                hits.incrementAndGet();
+                return jar;
+            }
+            misses.incrementAndGet();
+            jar = AgentJar.load(Jenkins.VERSION);
+            current = jar;
+            return jar;
+        }
+    }
+
+    /**
+     * @return the number of launches served from the cache.
+     */
+    public static long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of times the agent jar had to be read.
+     */
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Drops the cached agent jar, the next launch will read it again.
+     */
+    public static void invalidate() {
+        current = null;
+    }
+
+    /**
+     * An immutable agent jar and its digest.
+     */
+    public static final class AgentJar {
+
+        private final String jenkinsVersion;
+        private final byte[] bytes;
+        private final String sha256;
+
+        private AgentJar(String jenkinsVersion, byte[] bytes, String sha256) {
+            this.jenkinsVersion = jenkinsVersion;
+            this.bytes = bytes;
+            this.sha256 = sha256;
+        }
+
+        static AgentJar load(String jenkinsVersion) throws IOException {
+            byte[] bytes = new Slave.JnlpJar(SSHLauncher.AGENT_JAR).readFully();
+            try {
+                return new AgentJar(jenkinsVersion, bytes, SSHLauncher.getSha256Hash(bytes));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException("Cannot compute the hash of " + SSHLauncher.AGENT_JAR, e);
+            }
+        }
+
+        boolean isFor(String jenkinsVersion) {
+            return Objects.equals(this.jenkinsVersion, jenkinsVersion);
+        }
+
+        /**
+         * The content of the agent jar. The array is shared by all the launches and must not be modified.
+         * @return the content of the agent jar.
+         */
+        @NonNull
+        @SuppressFBWarnings(value = "EI_EXPOSE_REP", justification = "Shared on purpose to avoid a copy per launch.")
+        byte[] getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return the lower case hex SHA-256 of the agent jar.
+         */
+        @NonNull
+        public String getSha256() {
+            return sha256;
+        }
+
+        /**
+         * @return the size of the agent jar in bytes.
+         */
+        public int getSize() {
+            return bytes.length;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2004-, all the contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.sshslaves;
+
+import com.trilead.ssh2.SFTPv3FileAttributes;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.regex.Pattern;
+
+/**
+ * Sidecar file written next to the agent jar on the remote system. It records the SHA-256 of the jar together with
+ * the size and modification time reported by SFTP right after the jar was verified, so later launches can trust the
+ * installed jar after a single {@code stat} instead of reading it back.
+ * <p>
+ * SFTP reports modification times in whole seconds, so a jar of the same size replaced within the second it was
+ * verified in would look unchanged. The manifest is therefore only trusted once it was itself written in a later
+ * second than the modification time it records; any later replacement of the jar then gets a different modification
+ * time. A manifest written within the same second is rewritten by the next launch after it verified the jar again.
+ */
+final class AgentJarManifest {
+
+    static final String SUFFIX = ".sha256";
+
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-fA-F]{64}");
+
+    private final String sha256;
+    private final long size;
+    private final long mtime;
+
+    AgentJarManifest(@NonNull String sha256, long size, long mtime) {
+        this.sha256 = sha256;
+        this.size = size;
+        this.mtime = mtime;
+    }
+
+    @NonNull
+    String getSha256() {
+        return sha256;
+    }
+
+    /**
+     * Checks whether the remote file still looks like the one this manifest was written for.
+     * @param attributes the current attributes of the agent jar.
+     * @param manifestAttributes the current attributes of the manifest itself.
+     * @return true if the size and modification time are unchanged and the manifest was written after the second the
+     * agent jar was last modified in.
+     */
+    boolean matches(
+            @CheckForNull SFTPv3FileAttributes attributes, @CheckForNull SFTPv3FileAttributes manifestAttributes) {
+        return attributes != null
+                && attributes.size != null
+                && attributes.mtime != null
+                && attributes.size == size
+                && attributes.mtime.longValue() == mtime
+                && manifestAttributes != null
+                && manifestAttributes.mtime != null
+                && manifestAttributes.mtime.longValue() > mtime;
+    }
+
+    /**
+     * @return a manifest for the file described by the given attributes, or null if SFTP did not report them.
+     */
+    @CheckForNull
+    static AgentJarManifest of(@NonNull String sha256, @CheckForNull SFTPv3FileAttributes attributes) {
+        if (attributes == null || attributes.size == null || attributes.mtime == null) {
+            return null;
+        }
+        return new AgentJarManifest(sha256, attributes.size, attributes.mtime);
+    }
+
+    /**
+     * @return the parsed manifest or null if the content is not a manifest written by this plugin.
+     */
+    @CheckForNull
+    static AgentJarManifest parse(@CheckForNull String content) {
+        if (content == null) {
+            return null;
+        }
+        String[] parts = content.trim().split("\\s+");
+        if (parts.length != 3 || !isSha256(parts[0])) {
+            return null;
+        }
+        try {
+            return new AgentJarManifest(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static boolean isSha256(@CheckForNull String value) {
+        return value != null && SHA256.matcher(value).matches();
+    }
+
+    @NonNull
+    String format() {
+        return sha256 + " " + size + " " + mtime + "\n";
+    }
+}
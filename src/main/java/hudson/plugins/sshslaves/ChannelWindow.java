@@ -0,0 +1,83 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2004-, all the contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.sshslaves;
+
+import com.trilead.ssh2.Connection;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sizes the window of the SSH session carrying the remoting channel from the bandwidth-delay product of the link.
+ * <p>
+ * The sender stops once a window worth of data is unacknowledged, so a window smaller than the bandwidth-delay
+ * product caps the throughput below the bandwidth, while a larger one only costs buffer memory on the controller.
+ */
+final class ChannelWindow {
+
+    /**
+     * The smallest window used, even on a local link.
+     */
+    static final int MIN_SIZE = 256 * 1024;
+
+    /**
+     * The largest window used, even on a long fat link.
+     */
+    static final int MAX_SIZE = 128 * 1024 * 1024;
+
+    /**
+     * The number of round trips measured, the fastest one is used.
+     */
+    private static final int SAMPLES = 3;
+
+    private ChannelWindow() {}
+
+    /**
+     * @param rttNanos       the round trip time of the link, in nanoseconds.
+     * @param bandwidthMbits the bandwidth of the link, in Mbit/s.
+     * @return the bandwidth-delay product in bytes rounded up to a KB, between {@link #MIN_SIZE} and
+     *         {@link #MAX_SIZE}.
+     */
+    static int forRoundTrip(long rttNanos, int bandwidthMbits) {
+        double bytes = bandwidthMbits * 125_000.0 * rttNanos / TimeUnit.SECONDS.toNanos(1);
+        long size = (long) Math.ceil(bytes / 1024) * 1024;
+        return (int) Math.max(MIN_SIZE, Math.min(MAX_SIZE, size));
+    }
+
+    /**
+     * Measures the round trip time of an established connection with SSH pings.
+     *
+     * @param connection the connection.
+     * @return the fastest of a few round trips, in nanoseconds.
+     * @throws IOException if the connection fails.
+     */
+    static long measureRoundTrip(Connection connection) throws IOException {
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            connection.ping();
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        return fastest;
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2004-, all the contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.sshslaves;
+
+import com.trilead.ssh2.Connection;
+import com.trilead.ssh2.ConnectionInfo;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * The agent connections opened by the SSH launchers, to close them when the plugin stops and to report how many are
+ * open, to which hosts, for how long and with which algorithms.
+ * <p>
+ * The algorithms negotiated by a connection are read once when it is registered, the counts are computed from the
+ * open connections when they are asked for.
+ */
+final class ConnectionRegistry implements ConnectionRegistryMXBean {
+
+    private static final ConnectionRegistry INSTANCE = new ConnectionRegistry();
+
+    private static final String UNKNOWN = "unknown";
+
+    /**
+     * The upper bound of each age bucket, in hours, and its label.
+     */
+    private static final long[] AGE_BOUNDS_HOURS = {1, 24, 24 * 7, 24 * 30};
+
+    private static final String[] AGE_LABELS = {"< 1 hour", "< 1 day", "< 1 week", "< 30 days", ">= 30 days"};
+
+    /**
+     * The registered connections, {@link Connection} keeps the identity equality of {@link Object}.
+     */
+    private final Map<Connection, Registration> connections = new ConcurrentHashMap<>();
+
+    ConnectionRegistry() {}
+
+    @NonNull
+    static ConnectionRegistry get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param connection an established connection, registering it again has no effect.
+     */
+    void register(@NonNull Connection connection) {
+        if (!connections.containsKey(connection)) {
+            // reading the algorithms takes the connection lock, so not while holding the map's
+            connections.putIfAbsent(connection, new Registration(connection));
+        }
+    }
+
+    /**
+     * @param connection the connection, which may not be registered.
+     */
+    void unregister(@NonNull Connection connection) {
+        connections.remove(connection);
+    }
+
+    /**
+     * Unregisters all the connections.
+     *
+     * @return the connections that were registered.
+     */
+    @NonNull
+    List<Connection> removeAll() {
+        List<Connection> removed = new ArrayList<>();
+        for (Connection connection : connections.keySet()) {
+            if (connections.remove(connection) != null) {
+                removed.add(connection);
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public int getOpenCount() {
+        return connections.size();
+    }
+
+    @Override
+    public Map<String, Integer> getCountsByHost() {
+        return count(r -> r.host);
+    }
+
+    @Override
+    public Map<String, Integer> getAgeDistribution() {
+        int[] counts = new int[AGE_LABELS.length];
+        long now = System.nanoTime();
+        for (Registration registration : connections.values()) {
+            long hours = TimeUnit.NANOSECONDS.toHours(now - registration.registeredNanos);
+            int bucket = 0;
+            while (bucket < AGE_BOUNDS_HOURS.length && hours >= AGE_BOUNDS_HOURS[bucket]) {
+                bucket++;
+            }
+            counts[bucket]++;
+        }
+        Map<String, Integer> distribution = new LinkedHashMap<>();
+        for (int i = 0; i < AGE_LABELS.length; i++) {
+            distribution.put(AGE_LABELS[i], counts[i]);
+        }
+        return distribution;
+    }
+
+    @Override
+    public long getOldestAgeSeconds() {
+        long now = System.nanoTime();
+        long oldest = 0;
+        for (Registration registration : connections.values()) {
+            oldest = Math.max(oldest, now - registration.registeredNanos);
+        }
+        return TimeUnit.NANOSECONDS.toSeconds(oldest);
+    }
+
+    @Override
+    public Map<String, Integer> getKeyExchangeAlgorithms() {
+        return count(r -> r.keyExchange);
+    }
+
+    @Override
+    public Map<String, Integer> getHostKeyAlgorithms() {
+        return count(r -> r.hostKey);
+    }
+
+    @Override
+    public Map<String, Integer> getCiphers() {
+        return count(r -> r.ciphers);
+    }
+
+    @Override
+    public Map<String, Integer> getMacAlgorithms() {
+        return count(r -> r.macs);
+    }
+
+    private Map<String, Integer> count(Function<Registration, String> key) {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (Registration registration : connections.values()) {
+            counts.merge(key.apply(registration), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * What is known of a registered connection.
+     */
+    private static final class Registration {
+
+        private final String host;
+        private final long registeredNanos = System.nanoTime();
+        private final String keyExchange;
+        private final String hostKey;
+        private final String ciphers;
+        private final String macs;
+
+        Registration(Connection connection) {
+            this.host = String.valueOf(connection.getHostname());
+            ConnectionInfo info;
+            try {
+                info = connection.getConnectionInfo();
+            } catch (IOException | IllegalStateException e) {
+                // not connected (anymore), the algorithms cannot be known
+                info = null;
+            }
+            if (info != null) {
+                this.keyExchange = info.keyExchangeAlgorithm;
+                this.hostKey = info.serverHostKeyAlgorithm;
+                this.ciphers = info.clientToServerCryptoAlgorithm + "/" + info.serverToClientCryptoAlgorithm;
+                this.macs = info.clientToServerMACAlgorithm + "/" + info.serverToClientMACAlgorithm;
+            } else {
+                this.keyExchange = UNKNOWN;
+                this.hostKey = UNKNOWN;
+                this.ciphers = UNKNOWN;
+                this.macs = UNKNOWN;
+            }
+        }
+    }
+}
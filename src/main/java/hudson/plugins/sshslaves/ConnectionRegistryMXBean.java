@@ -0,0 +1,75 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2004-, all the contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.sshslaves;
+
+import java.util.Map;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * The JMX view of the {@link ConnectionRegistry}.
+ */
+@Restricted(NoExternalUse.class)
+public interface ConnectionRegistryMXBean {
+
+    /**
+     * @return the number of open agent connections.
+     */
+    int getOpenCount();
+
+    /**
+     * @return the number of open connections to each host.
+     */
+    Map<String, Integer> getCountsByHost();
+
+    /**
+     * @return the number of open connections by age: under an hour, a day, a week, 30 days, and older.
+     */
+    Map<String, Integer> getAgeDistribution();
+
+    /**
+     * @return the age of the oldest open connection, in seconds.
+     */
+    long getOldestAgeSeconds();
+
+    /**
+     * @return the number of open connections using each key exchange algorithm.
+     */
+    Map<String, Integer> getKeyExchangeAlgorithms();
+
+    /**
+     * @return the number of open connections using each host key algorithm.
+     */
+    Map<String, Integer> getHostKeyAlgorithms();
+
+    /**
+     * @return the number of open connections using each pair of ciphers, client to server first.
+     */
+    Map<String, Integer> getCiphers();
+
+    /**
+     * @return the number of open connections using each pair of MAC algorithms, client to server first.
+     */
+    Map<String, Integer> getMacAlgorithms();
+}
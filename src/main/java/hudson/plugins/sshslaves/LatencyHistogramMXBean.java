@@ -0,0 +1,74 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2004-, all the contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.sshslaves;
+
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * The JMX view of a {@link LatencyHistogram}.
+ */
+@Restricted(NoExternalUse.class)
+public interface LatencyHistogramMXBean {
+
+    /**
+     * @return the number of recorded durations.
+     */
+    long getCount();
+
+    /**
+     * @return the average duration, in milliseconds.
+     */
+    double getMeanMillis();
+
+    /**
+     * @return the longest duration, in milliseconds.
+     */
+    long getMaxMillis();
+
+    /**
+     * @return the upper bound of the bucket holding the median, in milliseconds.
+     */
+    long get50thPercentileMillis();
+
+    /**
+     * @return the upper bound of the bucket holding the 95th percentile, in milliseconds.
+     */
+    long get95thPercentileMillis();
+
+    /**
+     * @return the upper bound of the bucket holding the 99th percentile, in milliseconds.
+     */
+    long get99thPercentileMillis();
+
+    /**
+     * @return the inclusive upper bound of each bucket but the last one, in milliseconds.
+     */
+    long[] getBucketBoundsMillis();
+
+    /**
+     * @return the number of durations in each bucket, the last one counts the durations above all the bounds.
+     */
+    long[] getBucketCounts();
+}
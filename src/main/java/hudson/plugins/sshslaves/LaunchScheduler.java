@@ -0,0 +1,222 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2004-, all the contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.sshslaves;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Limits the number of SSH launches running at the same time, in total and per target host. Launches over the limit
+ * wait in arrival order, so a reconnect storm after a controller restart does not run thousands of key exchanges at
+ * once. A launch holds its permit during one connection attempt, key exchange and authentication, not while waiting
+ * to retry nor while copying and starting the agent.
+ */
+@Restricted(NoExternalUse.class)
+public final class LaunchScheduler implements LaunchSchedulerMXBean {
+
+    private static final LaunchScheduler INSTANCE = new LaunchScheduler(
+            SystemProperties.getInteger(SSHLauncher.class.getName() + ".maxConcurrentLaunches", 0),
+            SystemProperties.getInteger(SSHLauncher.class.getName() + ".maxConcurrentLaunchesPerHost", 0));
+
+    @CheckForNull
+    private final Semaphore global;
+
+    private final int perHostLimit;
+
+    private final Map<String, HostPermits> hosts = new ConcurrentHashMap<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong launches = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * @param globalLimit  the maximum number of launches running at the same time, 0 or less for no limit.
+     * @param perHostLimit the maximum number of launches to the same host running at the same time, 0 or less for no
+     *                     limit.
+     */
+    LaunchScheduler(int globalLimit, int perHostLimit) {
+        this.global = globalLimit > 0 ? new Semaphore(globalLimit, true) : null;
+        this.perHostLimit = perHostLimit;
+    }
+
+    @NonNull
+    public static LaunchScheduler get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Waits until a launch to the given host is allowed to start.
+     *
+     * @param host the host the launch connects to.
+     * @return the permit to close once the launch is done.
+     * @throws InterruptedException if interrupted while waiting, no permit is held then.
+     */
+    @NonNull
+    public Permit acquire(@NonNull String host) throws InterruptedException {
+        long start = System.nanoTime();
+        queued.incrementAndGet();
+        HostPermits hostPermits = null;
+        boolean acquired = false;
+        try {
+            if (perHostLimit > 0) {
+                hostPermits = hosts.compute(host, (k, v) -> {
+                    HostPermits permits = v != null ? v : new HostPermits(perHostLimit);
+                    permits.users++;
+                    return permits;
+                });
+                hostPermits.semaphore.acquire();
+            }
+            try {
+                if (global != null) {
+                    global.acquire();
+                }
+                acquired = true;
+            } finally {
+                if (!acquired && hostPermits != null) {
+                    hostPermits.semaphore.release();
+                }
+            }
+        } finally {
+            queued.decrementAndGet();
+            if (!acquired && hostPermits != null) {
+                releaseHost(host);
+            }
+        }
+        long waited = System.nanoTime() - start;
+        launches.incrementAndGet();
+        running.incrementAndGet();
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        return new Permit(host, hostPermits, TimeUnit.NANOSECONDS.toMillis(waited));
+    }
+
+    private void releaseHost(String host) {
+        hosts.computeIfPresent(host, (k, v) -> --v.users == 0 ? null : v);
+    }
+
+    /**
+     * @return the number of launches waiting for a permit.
+     */
+    @Override
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * @return the number of launches holding a permit.
+     */
+    @Override
+    public int getRunning() {
+        return running.get();
+    }
+
+    /**
+     * @return the number of permits granted so far.
+     */
+    @Override
+    public long getLaunches() {
+        return launches.get();
+    }
+
+    /**
+     * @return the average time launches waited for a permit, in milliseconds.
+     */
+    @Override
+    public long getAverageWaitMillis() {
+        long count = launches.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get() / count);
+    }
+
+    /**
+     * @return the longest time a launch waited for a permit, in milliseconds.
+     */
+    @Override
+    public long getMaxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    private static final class HostPermits {
+        private final Semaphore semaphore;
+        private int users;
+
+        HostPermits(int limit) {
+            this.semaphore = new Semaphore(limit, true);
+        }
+    }
+
+    /**
+     * The right to run one launch, released by {@link #close()}.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final String host;
+
+        @CheckForNull
+        private final HostPermits hostPermits;
+
+        private final long waitedMillis;
+
+        private boolean closed;
+
+        private Permit(String host, @CheckForNull HostPermits hostPermits, long waitedMillis) {
+            this.host = host;
+            this.hostPermits = hostPermits;
+            this.waitedMillis = waitedMillis;
+        }
+
+        /**
+         * @return how long the launch waited for this permit, in milliseconds.
+         */
+        public long getWaitedMillis() {
+            return waitedMillis;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            running.decrementAndGet();
+            if (global != null) {
+                global.release();
+            }
+            if (hostPermits != null) {
+                hostPermits.semaphore.release();
+                releaseHost(host);
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2004-, all the contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.sshslaves;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the phases of one launch with {@link System#nanoTime()}, and records them in a process wide
+ * {@link LatencyHistogram} per phase.
+ * <p>
+ * Phases may nest, the time spent in an inner phase is not counted in the outer one. The host key verification for
+ * instance runs during the key exchange, and the connect phase is what is left of the key exchange without it.
+ */
+final class LaunchTimer {
+
+    /**
+     * The phases of a launch, in the order they run.
+     */
+    enum Phase {
+        SLOT_WAIT("slot wait"),
+        CONNECT("connect"),
+        RETRY_WAIT("retry wait"),
+        HOST_KEY("host key"),
+        AUTHENTICATION("authentication"),
+        PREFLIGHT("pre-flight"),
+        ENVIRONMENT("environment"),
+        SFTP("sftp"),
+        SFTP_STAT("sftp stat"),
+        AGENT_JAR_HASH("agent jar hash"),
+        AGENT_JAR_UPLOAD("agent jar upload"),
+        START_AGENT("agent start"),
+        CHANNEL("channel");
+
+        private final String displayName;
+
+        Phase(String displayName) {
+            this.displayName = displayName;
+        }
+
+        @NonNull
+        String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    private static final Map<Phase, LatencyHistogram> HISTOGRAMS = new EnumMap<>(Phase.class);
+
+    private static final LatencyHistogram TOTAL = new LatencyHistogram();
+
+    static {
+        for (Phase phase : Phase.values()) {
+            HISTOGRAMS.put(phase, new LatencyHistogram());
+        }
+    }
+
+    private final long[] nanos = new long[Phase.values().length];
+
+    private final boolean[] ran = new boolean[Phase.values().length];
+
+    @CheckForNull
+    private Split current;
+
+    /**
+     * @return the histogram of each phase, over all the launches.
+     */
+    @NonNull
+    static Map<Phase, LatencyHistogram> getHistograms() {
+        return Collections.unmodifiableMap(HISTOGRAMS);
+    }
+
+    /**
+     * @return the histogram of the whole launches.
+     */
+    @NonNull
+    static LatencyHistogram getTotal() {
+        return TOTAL;
+    }
+
+    /**
+     * Starts timing a phase, inside the current one if any.
+     *
+     * @param phase the phase.
+     * @return the split to close when the phase ends.
+     */
+    @NonNull
+    synchronized Split start(@NonNull Phase phase) {
+        current = new Split(this, phase, current);
+        return current;
+    }
+
+    /**
+     * Adds time measured elsewhere to a phase.
+     *
+     * @param phase the phase.
+     * @param nanos the duration, in nanoseconds.
+     */
+    synchronized void add(@NonNull Phase phase, long nanos) {
+        this.nanos[phase.ordinal()] += nanos;
+        ran[phase.ordinal()] = true;
+    }
+
+    /**
+     * @param phase the phase.
+     * @return the time spent in the phase, in nanoseconds.
+     */
+    synchronized long getNanos(@NonNull Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    private synchronized void stop(Split split, long elapsed) {
+        add(split.phase, elapsed);
+        if (split.parent != null) {
+            nanos[split.parent.phase.ordinal()] -= elapsed;
+        }
+        if (current == split) {
+            current = split.parent;
+        }
+    }
+
+    /**
+     * Adds the phases that ran to the histograms.
+     */
+    synchronized void record() {
+        for (Phase phase : Phase.values()) {
+            if (ran[phase.ordinal()]) {
+                HISTOGRAMS.get(phase).record(nanos[phase.ordinal()]);
+            }
+        }
+    }
+
+    /**
+     * @return the phases that ran and their duration, such as {@code connect 120 ms, host key 3 ms}.
+     */
+    @Override
+    public synchronized String toString() {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (Phase phase : Phase.values()) {
+            if (ran[phase.ordinal()]) {
+                joiner.add(phase.getDisplayName() + " " + TimeUnit.NANOSECONDS.toMillis(nanos[phase.ordinal()])
+                        + " ms");
+            }
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * The time spent in a phase, from its start to {@link #close()}.
+     */
+    static final class Split implements AutoCloseable {
+
+        /**
+         * A split timing nothing, for the code running outside a launch.
+         */
+        static final Split NONE = new Split(null, Phase.CONNECT, null);
+
+        @CheckForNull
+        private final LaunchTimer timer;
+
+        private final Phase phase;
+
+        @CheckForNull
+        private final Split parent;
+
+        private final long start = System.nanoTime();
+
+        private boolean closed;
+
+        private Split(@CheckForNull LaunchTimer timer, Phase phase, @CheckForNull Split parent) {
+            this.timer = timer;
+            this.phase = phase;
+            this.parent = parent;
+        }
+
+        @Override
+        public void close() {
+            if (timer == null || closed) {
+                return;
+            }
+            closed = true;
+            timer.stop(this, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2004-, all the contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.sshslaves;
+
+import com.trilead.ssh2.Connection;
+import com.trilead.ssh2.SFTPv3Client;
+import com.trilead.ssh2.SFTPv3FileHandle;
+import com.trilead.ssh2.jenkins.SFTPClient;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Uploads a file over several SFTP channels of the same connection at once.
+ * <p>
+ * Trilead waits for the acknowledgement of each SFTP write request before sending the next one, so copying a file
+ * over a single channel takes one round trip per 32KB. Writing disjoint ranges of the file over {@code window}
+ * channels keeps that many write requests in flight. This is not pipelining on one channel: each extra range opens
+ * its own session channel and SFTP subsystem, which costs a channel open and an SFTP init round trip.
+ */
+final class PipelinedSFTPUpload {
+
+    /**
+     * The largest write request Trilead sends.
+     */
+    static final int CHUNK_SIZE = 32768;
+
+    private PipelinedSFTPUpload() {}
+
+    /**
+     * Creates the file and writes the content to it. The other ranges are written on the {@link PluginImpl} launcher
+     * executor, a range no thread picked up yet is written by the calling thread. The method returns once every range
+     * is written or abandoned, so no channel it opened is left behind.
+     *
+     * @param connection The connection used to open the additional SFTP channels.
+     * @param sftpClient The SFTP client used to create the file, it writes the first range itself.
+     * @param fileName   The file to create.
+     * @param content    The content of the file.
+     * @param window     The number of ranges written at the same time, each one over its own channel.
+     * @throws IOException If something goes wrong.
+     * @throws InterruptedException If interrupted while waiting for the other channels.
+     */
+    static void upload(Connection connection, SFTPClient sftpClient, String fileName, byte[] content, int window)
+            throws IOException, InterruptedException {
+        int chunks = (content.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int stripes = Math.max(1, Math.min(window, chunks));
+        int stripeLength = (chunks + stripes - 1) / stripes * CHUNK_SIZE;
+
+        SFTPv3FileHandle handle = sftpClient.createFile(fileName);
+        try {
+            List<Stripe> others = new ArrayList<>();
+            try {
+                ExecutorService executor = PluginImpl.getLauncherExecutor();
+                for (int from = stripeLength; from < content.length; from += stripeLength) {
+                    Stripe stripe = new Stripe(
+                            connection, fileName, content, from, Math.min(content.length, from + stripeLength));
+                    others.add(stripe);
+                    executor.execute(stripe::run);
+                }
+                write(sftpClient, handle, content, 0, Math.min(content.length, stripeLength));
+                for (Stripe other : others) {
+                    // with a bounded executor the stripe may still be queued behind launches waiting on us
+                    other.run();
+                    other.await();
+                }
+            } catch (Throwable t) {
+                abandon(others, t);
+                throw t;
+            }
+        } finally {
+            sftpClient.closeFile(handle);
+        }
+    }
+
+    /**
+     * Abandons every stripe after the upload failed. Being interrupted while waiting for a stripe does not replace the
+     * original failure, it is recorded as suppressed by it and the interrupt status is restored once all stripes are
+     * abandoned.
+     *
+     * @param stripes the stripes written over other channels.
+     * @param failure the failure of the upload.
+     */
+    private static void abandon(List<Stripe> stripes, Throwable failure) {
+        boolean interrupted = false;
+        for (Stripe stripe : stripes) {
+            try {
+                stripe.abandon();
+            } catch (InterruptedException e) {
+                interrupted = true;
+                failure.addSuppressed(e);
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A range of the file written over its own SFTP channel, by whichever thread claims it first.
+     */
+    private static final class Stripe {
+
+        private final Connection connection;
+        private final String fileName;
+        private final byte[] content;
+        private final int from;
+        private final int to;
+
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private volatile SFTPv3Client client;
+        private volatile boolean abandoned;
+        private volatile IOException failure;
+
+        Stripe(Connection connection, String fileName, byte[] content, int from, int to) {
+            this.connection = connection;
+            this.fileName = fileName;
+            this.content = content;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Writes the range, unless another thread claimed it.
+         */
+        void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                client = new SFTPv3Client(connection);
+                try {
+                    if (abandoned) {
+                        return;
+                    }
+                    SFTPv3FileHandle handle = client.openFileRW(fileName);
+                    try {
+                        write(client, handle, content, from, to);
+                    } finally {
+                        client.closeFile(handle);
+                    }
+                } finally {
+                    client.close();
+                }
+            } catch (IOException e) {
+                failure = e;
+            } catch (RuntimeException e) {
+                failure = new IOException(e);
+            } finally {
+                done.countDown();
+            }
+        }
+
+        /**
+         * Waits for the range to be written.
+         *
+         * @throws IOException if it could not be written.
+         * @throws InterruptedException if interrupted while waiting.
+         */
+        void await() throws IOException, InterruptedException {
+            done.await();
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        /**
+         * Keeps the range from being written if no thread started it, or closes its channel and waits for the thread
+         * writing it otherwise.
+         *
+         * @throws InterruptedException if interrupted while waiting.
+         */
+        void abandon() throws InterruptedException {
+            abandoned = true;
+            if (claimed.compareAndSet(false, true)) {
+                return;
+            }
+            SFTPv3Client c = client;
+            if (c != null) {
+                c.close();
+            }
+            done.await();
+        }
+    }
+
+    private static void write(SFTPv3Client client, SFTPv3FileHandle handle, byte[] content, int from, int to)
+            throws IOException {
+        for (int offset = from; offset < to; offset += CHUNK_SIZE) {
+            client.write(handle, offset, content, offset, Math.min(CHUNK_SIZE, to - offset));
+        }
+    }
+}
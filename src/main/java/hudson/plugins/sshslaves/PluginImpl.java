@@ -24,11 +24,35 @@
 package hudson.plugins.sshslaves;
 
 import com.trilead.ssh2.Connection;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Plugin;
+import hudson.model.Computer;
+import hudson.plugins.sshslaves.verifiers.HostKeyHelper;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import jenkins.util.SystemProperties;
 
 /**
  * Entry point of the plugin.
@@ -38,9 +62,64 @@ import java.util.logging.Logger;
 public class PluginImpl extends Plugin {
 
     /**
-     * The connections to close when the plugin is stopped.
+     * The default of {@link #LAUNCHER_THREADS}. A launch keeps its thread while waiting for a retry or a launch slot,
+     * so the bound is well above the number of key exchanges worth running at once.
      */
-    private static final List<Connection> activeConnections = new ArrayList<>();
+    private static final int DEFAULT_LAUNCHER_THREADS = 256;
+
+    /**
+     * The maximum number of threads running SSH launches at the same time, further launches are queued in arrival
+     * order. Threads are started as launches come in, up to the limit, and expire when idle. 0 or less for no limit,
+     * a thread is then started whenever no idle one is left. {@link LaunchScheduler} limits the connection attempts
+     * themselves.
+     */
+    private static final int LAUNCHER_THREADS = SystemProperties.getInteger(
+            SSHLauncher.class.getName() + ".launcherThreads", DEFAULT_LAUNCHER_THREADS);
+
+    /**
+     * Run the SSH launches and the connection teardown on virtual threads. Only honoured on Java 24 or newer: Trilead
+     * waits in {@code synchronized} blocks and {@link Object#wait()}, which pin the carrier thread on earlier versions,
+     * so a few hundred launches waiting on the network would use up all the carriers.
+     */
+    private static final boolean USE_VIRTUAL_THREADS =
+            SystemProperties.getBoolean(SSHLauncher.class.getName() + ".useVirtualThreads", false);
+
+    /**
+     * The maximum number of connections closed at the same time when the plugin is stopped.
+     */
+    private static final int CLOSE_THREADS = 32;
+
+    /**
+     * The maximum number of connections still closing listed in the system log.
+     */
+    private static final int MAX_REPORTED_STRAGGLERS = 20;
+
+    /**
+     * How long stopping the plugin waits for the agent connections to close, in seconds. The connections still
+     * closing after that are left to the JVM shutdown.
+     */
+    private static final long CLOSE_TIMEOUT_SECONDS =
+            SystemProperties.getLong(SSHLauncher.class.getName() + ".closeTimeoutSeconds", 30L);
+
+    /**
+     * The executor shared by all the SSH launches, created on first use.
+     */
+    private static ExecutorService launcherExecutor;
+
+    /**
+     * Whether {@link #launcherExecutor} runs its tasks on virtual threads.
+     */
+    private static boolean virtualThreads;
+
+    /**
+     * The domain of the MBeans registered by the plugin.
+     */
+    static final String JMX_DOMAIN = "hudson.plugins.sshslaves";
+
+    /**
+     * The MBeans to unregister when the plugin is stopped.
+     */
+    private static final List<ObjectName> registeredMBeans = new ArrayList<>();
 
     /**
      * {@inheritDoc}
@@ -48,6 +127,7 @@ public class PluginImpl extends Plugin {
     @Override
     public void start() throws Exception {
         LOGGER.log(Level.FINE, "Starting the SSH Build Agents plugin");
+        registerMBeans();
     }
 
     /**
@@ -56,22 +136,232 @@ public class PluginImpl extends Plugin {
     @Override
     public void stop() throws Exception {
         LOGGER.log(Level.FINE, "Stopping the SSH Build Agents plugin.");
+        shutdownLauncherExecutor();
         closeRegisteredConnections();
+        HostKeyHelper.getInstance().closeStore();
+        unregisterMBeans();
         LOGGER.log(Level.FINE, "SSH Build Agents plugin stopped.");
     }
 
+    /**
+     * Returns the executor running the SSH launches. Its threads are reused across launches and expire when idle, so
+     * a reconnect storm does not create and destroy a thread per connection attempt. It runs at most
+     * {@link #LAUNCHER_THREADS} launches at once, the others wait in its queue.
+     *
+     * @return the shared launcher executor.
+     */
+    @NonNull
+    public static synchronized ExecutorService getLauncherExecutor() {
+        if (launcherExecutor == null || launcherExecutor.isShutdown()) {
+            if (USE_VIRTUAL_THREADS) {
+                ExecutorService executor = newVirtualThreadExecutor("SSHLauncher.launch");
+                if (executor != null) {
+                    launcherExecutor = executor;
+                    virtualThreads = true;
+                    return executor;
+                }
+            }
+            virtualThreads = false;
+            ThreadFactory threadFactory = new NamingThreadFactory(new DaemonThreadFactory(), "SSHLauncher.launch");
+            ThreadPoolExecutor executor;
+            if (LAUNCHER_THREADS > 0) {
+                executor = new ThreadPoolExecutor(
+                        LAUNCHER_THREADS,
+                        LAUNCHER_THREADS,
+                        60,
+                        TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(),
+                        threadFactory);
+                executor.allowCoreThreadTimeOut(true);
+            } else {
+                executor = new ThreadPoolExecutor(
+                        0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), threadFactory);
+            }
+            launcherExecutor = executor;
+        }
+        return launcherExecutor;
+    }
+
+    /**
+     * Returns the executor to run the connection teardown work on: the virtual thread launcher executor when it is
+     * enabled and running, the remoting thread pool otherwise. It never creates the launcher executor, so a teardown
+     * while or after the plugin stops does not start a new pool.
+     *
+     * @return an executor for short lived teardown tasks.
+     */
+    @NonNull
+    static synchronized ExecutorService getTeardownExecutor() {
+        if (virtualThreads && launcherExecutor != null && !launcherExecutor.isShutdown()) {
+            return launcherExecutor;
+        }
+        return Computer.threadPoolForRemoting;
+    }
+
+    /**
+     * Creates an executor starting a new virtual thread per task.
+     *
+     * @param name the prefix of the thread names.
+     * @return the executor, or null before Java 24 or if the JVM does not support virtual threads.
+     */
+    @CheckForNull
+    static ExecutorService newVirtualThreadExecutor(@NonNull String name) {
+        if (Runtime.version().feature() < 24) {
+            LOGGER.log(
+                    Level.WARNING,
+                    "Virtual threads pin their carrier thread inside the SSH library before Java 24, using platform"
+                            + " threads for the SSH launches on Java " + Runtime.version().feature());
+            return null;
+        }
+        // Called reflectively as the plugin is compiled for Java 17
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class
+                    .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.log(
+                    Level.WARNING,
+                    "Virtual threads are not available on Java " + System.getProperty("java.specification.version")
+                            + ", using platform threads for the SSH launches",
+                    e);
+            return null;
+        }
+    }
+
+    /**
+     * Registers the launch phase histograms in the platform MBean server, as
+     * {@code hudson.plugins.sshslaves:type=LaunchPhase,name=<phase>}, and the open connection gauges as
+     * {@code hudson.plugins.sshslaves:type=Connections,name=active}.
+     */
+    private static synchronized void registerMBeans() {
+        for (Map.Entry<LaunchTimer.Phase, LatencyHistogram> entry : LaunchTimer.getHistograms().entrySet()) {
+            registerMBean("LaunchPhase", entry.getKey().name().toLowerCase(Locale.ENGLISH), entry.getValue());
+        }
+        registerMBean("LaunchPhase", "total", LaunchTimer.getTotal());
+        registerMBean("Connections", "active", ConnectionRegistry.get());
+        registerMBean("LaunchScheduler", "launches", LaunchScheduler.get());
+    }
+
+    /**
+     * Registers an MBean, replacing the one registered under the same name by a previous start of the plugin.
+     *
+     * @param type  the type of the MBean.
+     * @param name  the name of the MBean.
+     * @param mbean the MBean.
+     */
+    static synchronized void registerMBean(@NonNull String type, @NonNull String name, @NonNull Object mbean) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=" + type + ",name=" + name);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(mbean, objectName);
+            registeredMBeans.add(objectName);
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Could not register the " + type + " " + name + " MBean", e);
+        }
+    }
+
+    /**
+     * Unregisters the MBeans registered by the plugin.
+     */
+    private static synchronized void unregisterMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName objectName : registeredMBeans) {
+            try {
+                server.unregisterMBean(objectName);
+            } catch (JMException e) {
+                LOGGER.log(Level.FINE, "Could not unregister " + objectName, e);
+            }
+        }
+        registeredMBeans.clear();
+    }
+
+    /**
+     * Interrupts the launches still running.
+     */
+    private static synchronized void shutdownLauncherExecutor() {
+        if (launcherExecutor != null) {
+            launcherExecutor.shutdownNow();
+            launcherExecutor = null;
+        }
+    }
+
     /**
      * Closes all the registered connections.
      */
-    private static synchronized void closeRegisteredConnections() {
-        for (Connection connection : activeConnections) {
-            LOGGER.log(Level.INFO, "Forcing connection to {0}:{1} closed.", new Object[] {
-                connection.getHostname(), connection.getPort()
-            });
-            // force closed just in case
-            connection.close();
+    private static void closeRegisteredConnections() {
+        List<Connection> connections = ConnectionRegistry.get().removeAll();
+        if (connections.isEmpty()) {
+            return;
+        }
+        LOGGER.log(Level.INFO, "Forcing {0} SSH agent connections closed.", connections.size());
+        List<Connection> stragglers =
+                closeAll(connections, CLOSE_THREADS, TimeUnit.SECONDS.toMillis(CLOSE_TIMEOUT_SECONDS));
+        if (!stragglers.isEmpty()) {
+            StringJoiner hosts = new StringJoiner(", ");
+            for (Connection connection : stragglers.subList(0, Math.min(MAX_REPORTED_STRAGGLERS, stragglers.size()))) {
+                hosts.add(connection.getHostname() + ":" + connection.getPort());
+            }
+            if (stragglers.size() > MAX_REPORTED_STRAGGLERS) {
+                hosts.add("...");
+            }
+            LOGGER.log(
+                    Level.WARNING,
+                    "{0} SSH agent connections were still closing after {1} seconds: {2}",
+                    new Object[] {stragglers.size(), CLOSE_TIMEOUT_SECONDS, hosts});
         }
-        activeConnections.clear();
+    }
+
+    /**
+     * Closes connections in parallel. Closing a connection sends an SSH disconnect message, which blocks when the
+     * network to the agent is black-holed, so the closes share a single deadline instead of waiting for each TCP
+     * timeout.
+     *
+     * @param connections   the connections to close.
+     * @param threads       the maximum number of connections closed at the same time.
+     * @param timeoutMillis how long to wait for all of them to close.
+     * @return the connections not closed in time, their close is interrupted.
+     */
+    @NonNull
+    static List<Connection> closeAll(@NonNull List<Connection> connections, int threads, long timeoutMillis) {
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(threads, connections.size())),
+                new NamingThreadFactory(new DaemonThreadFactory(), "SSHLauncher.close"));
+        Set<Connection> pending = ConcurrentHashMap.newKeySet();
+        pending.addAll(connections);
+        CountDownLatch closed = new CountDownLatch(connections.size());
+        try {
+            for (Connection connection : connections) {
+                executor.execute(() -> {
+                    try {
+                        LOGGER.log(Level.FINE, "Forcing connection to {0}:{1} closed.", new Object[] {
+                            connection.getHostname(), connection.getPort()
+                        });
+                        // force closed just in case
+                        connection.close();
+                    } catch (RuntimeException e) {
+                        LOGGER.log(Level.FINE, "Could not close the connection to " + connection.getHostname(), e);
+                    } finally {
+                        pending.remove(connection);
+                        closed.countDown();
+                    }
+                });
+            }
+            executor.shutdown();
+            closed.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // listed before interrupting the closes still running, which then return early
+        List<Connection> stragglers = new ArrayList<>(connections);
+        stragglers.retainAll(pending);
+        executor.shutdownNow();
+        return stragglers;
     }
 
     /**
@@ -79,10 +369,8 @@ public class PluginImpl extends Plugin {
      *
      * @param connection The connection.
      */
-    public static synchronized void register(Connection connection) {
-        if (!activeConnections.contains(connection)) {
-            activeConnections.add(connection);
-        }
+    public static void register(Connection connection) {
+        ConnectionRegistry.get().register(connection);
     }
 
     /**
@@ -90,8 +378,8 @@ public class PluginImpl extends Plugin {
      *
      * @param connection The connection.
      */
-    public static synchronized void unregister(Connection connection) {
-        activeConnections.remove(connection);
+    public static void unregister(Connection connection) {
+        ConnectionRegistry.get().unregister(connection);
     }
 
     /**
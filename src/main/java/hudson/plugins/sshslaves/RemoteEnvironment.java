@@ -0,0 +1,132 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2004-, all the contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.sshslaves;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Filters and parses the output of {@code set} on the agent.
+ */
+final class RemoteEnvironment {
+
+    private static final Pattern VARIABLE = Pattern.compile("^([A-Za-z_][A-Za-z0-9_]*)=(.*)$");
+
+    private RemoteEnvironment() {}
+
+    /**
+     * @param allowlist variable names separated by spaces, commas or new lines.
+     * @return the names, empty if all the variables are allowed.
+     */
+    @NonNull
+    static Set<String> parseAllowlist(@CheckForNull String allowlist) {
+        if (allowlist == null || allowlist.isBlank()) {
+            return Collections.emptySet();
+        }
+        Set<String> names = new LinkedHashSet<>(Arrays.asList(allowlist.trim().split("[\\s,]+")));
+        names.remove("");
+        return names;
+    }
+
+    /**
+     * Keeps the lines of the output defining an allowed variable. Shell functions and multi-line values are dropped.
+     *
+     * @param output    the output of {@code set}.
+     * @param allowlist the allowed variable names, all the output is kept if empty.
+     * @return the filtered output.
+     */
+    @NonNull
+    static String filter(@NonNull String output, @NonNull Set<String> allowlist) {
+        if (allowlist.isEmpty()) {
+            return output;
+        }
+        StringBuilder filtered = new StringBuilder();
+        for (String line : output.split("\\r?\\n")) {
+            Matcher m = VARIABLE.matcher(line);
+            if (m.matches() && allowlist.contains(m.group(1))) {
+                filtered.append(line).append('\n');
+            }
+        }
+        return filtered.toString();
+    }
+
+    /**
+     * @param output   the text to shorten.
+     * @param maxBytes the maximum number of UTF-8 bytes to keep, 0 or less to keep it all.
+     * @return the text cut after {@code maxBytes} bytes, or the text itself if it is short enough.
+     */
+    @NonNull
+    static String truncate(@NonNull String output, int maxBytes) {
+        if (maxBytes <= 0) {
+            return output;
+        }
+        byte[] bytes = output.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= maxBytes) {
+            return output;
+        }
+        int end = maxBytes;
+        // do not cut a multi-byte character
+        while (end > 0 && (bytes[end] & 0xC0) == 0x80) {
+            end--;
+        }
+        return new String(bytes, 0, end, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses the variables listed by {@code set}. The quotes the shell adds around simple values are removed.
+     *
+     * @param output the output of {@code set}.
+     * @return the variables in the order they were listed.
+     */
+    @NonNull
+    static Map<String, String> parse(@NonNull String output) {
+        Map<String, String> variables = new LinkedHashMap<>();
+        for (String line : output.split("\\r?\\n")) {
+            Matcher m = VARIABLE.matcher(line);
+            if (m.matches()) {
+                variables.putIfAbsent(m.group(1), unquote(m.group(2)));
+            }
+        }
+        return variables;
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2
+                && value.startsWith("'")
+                && value.endsWith("'")
+                && value.indexOf('\'', 1) == value.length() - 1) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2004-, all the contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.sshslaves;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The result of the batched pre-flight probe: a single shell script run on the agent before the agent jar is copied,
+ * replacing the separate exec requests checking for header junk, dumping the environment, checking the working
+ * directory and the installed agent jar. Each part of the output follows a marker line made of a random token, so the
+ * parts can be told apart whatever the environment contains.
+ */
+final class RemoteProbe {
+
+    /**
+     * The state of the remote working directory.
+     */
+    enum WorkDirState {
+        DIRECTORY,
+        FILE,
+        MISSING
+    }
+
+    private static final String BEGIN = "begin";
+    private static final String ENV = "env";
+    private static final String WORKDIR = "workdir";
+    private static final String JAR = "jar";
+    private static final String END = "end";
+
+    private final String headerJunk;
+    private final String environment;
+    private final WorkDirState workDirState;
+    private final boolean agentJarPresent;
+
+    @CheckForNull
+    private final String agentJarSha256;
+
+    private RemoteProbe(
+            String headerJunk,
+            String environment,
+            WorkDirState workDirState,
+            boolean agentJarPresent,
+            @CheckForNull String agentJarSha256) {
+        this.headerJunk = headerJunk;
+        this.environment = environment;
+        this.workDirState = workDirState;
+        this.agentJarPresent = agentJarPresent;
+        this.agentJarSha256 = agentJarSha256;
+    }
+
+    /**
+     * Builds the probe script. It only uses POSIX shell syntax, the launcher falls back to separate requests when the
+     * output cannot be parsed, e.g. when the login shell of the agent is not a Bourne shell.
+     *
+     * @param marker           the random token prefixing the marker lines.
+     * @param workingDirectory the remote working directory.
+     * @param environment      whether to list the environment of the agent user.
+     * @return the script to run.
+     */
+    @NonNull
+    static String script(
+            @NonNull String marker, @NonNull String workingDirectory, boolean environment) {
+        String dir = SSHLauncher.shellQuote(workingDirectory);
+        String jar = SSHLauncher.shellQuote(workingDirectory + SSHLauncher.SLASH_AGENT_JAR);
+        return "echo '" + marker + ":" + BEGIN + "'\n"
+                + "echo '" + marker + ":" + ENV + "'\n"
+                + (environment ? "set\n" : "")
+                + "echo '" + marker + ":" + WORKDIR + "'\n"
+                + "if [ -d " + dir + " ]; then echo directory; elif [ -e " + dir + " ]; then echo file;"
+                + " else echo missing; fi\n"
+                + "echo '" + marker + ":" + JAR + "'\n"
+                + "if [ -f " + jar + " ]; then sha256sum " + jar + " 2>/dev/null || shasum -a 256 " + jar
+                + " 2>/dev/null || echo present; else echo missing; fi\n"
+                + "echo '" + marker + ":" + END + "'\n";
+    }
+
+    /**
+     * Parses the output of the {@link #script probe script}.
+     *
+     * @param marker the token the script was built with.
+     * @param output the output of the script, stdout and stderr merged.
+     * @return the probe result, or null if the output is not complete.
+     */
+    @CheckForNull
+    static RemoteProbe parse(@NonNull String marker, @NonNull String output) {
+        String begin = marker + ":" + BEGIN + "\n";
+        int start;
+        if (output.startsWith(begin)) {
+            start = 0;
+        } else {
+            int index = output.indexOf("\n" + begin);
+            if (index < 0) {
+                return null;
+            }
+            start = index + 1;
+        }
+        String headerJunk = output.substring(0, start);
+
+        Map<String, StringBuilder> sections = new HashMap<>();
+        StringBuilder current = null;
+        String prefix = marker + ":";
+        for (String line : output.substring(start + begin.length()).split("\r?\n", -1)) {
+            if (line.startsWith(prefix)) {
+                current = new StringBuilder();
+                sections.put(line.substring(prefix.length()), current);
+            } else if (current != null) {
+                current.append(line).append('\n');
+            }
+        }
+        if (!sections.containsKey(END)
+                || !sections.containsKey(ENV)
+                || !sections.containsKey(WORKDIR)
+                || !sections.containsKey(JAR)) {
+            return null;
+        }
+
+        // like the exit 0 probe it replaces, also catch what a logout script prints once the probe is done
+        String endLine = prefix + END;
+        String trailer = output.substring(output.lastIndexOf(endLine) + endLine.length());
+        if (trailer.startsWith("\r\n")) {
+            trailer = trailer.substring(2);
+        } else if (trailer.startsWith("\n")) {
+            trailer = trailer.substring(1);
+        }
+        headerJunk += trailer;
+
+        WorkDirState workDirState;
+        try {
+            workDirState = WorkDirState.valueOf(sections.get(WORKDIR).toString().trim().toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        String jar = sections.get(JAR).toString().trim();
+        String digest = jar.split("\\s+", 2)[0];
+        boolean agentJarPresent = !jar.equals("missing");
+        String agentJarSha256 = AgentJarManifest.isSha256(digest) ? digest.toLowerCase(Locale.ENGLISH) : null;
+
+        return new RemoteProbe(
+                headerJunk,
+                sections.get(ENV).toString(),
+                workDirState,
+                agentJarPresent,
+                agentJarSha256);
+    }
+
+    /**
+     * @return what the shell printed before the probe started or after it ended, empty if nothing.
+     */
+    @NonNull
+    String getHeaderJunk() {
+        return headerJunk;
+    }
+
+    /**
+     * @return the output of {@code set}, empty if the environment was not listed.
+     */
+    @NonNull
+    String getEnvironment() {
+        return environment;
+    }
+
+    @NonNull
+    WorkDirState getWorkDirState() {
+        return workDirState;
+    }
+
+    boolean isAgentJarPresent() {
+        return agentJarPresent;
+    }
+
+    /**
+     * @return the lower case hex SHA-256 of the installed agent jar, null if it is missing or could not be computed.
+     */
+    @CheckForNull
+    String getAgentJarSha256() {
+        return agentJarSha256;
+    }
+}
@@ -38,6 +38,8 @@ import hudson.Extension;
 import hudson.model.Computer;
 import hudson.model.ItemGroup;
 import hudson.model.TaskListener;
+import hudson.plugins.sshslaves.retry.ConnectionRetryStrategy;
+import hudson.plugins.sshslaves.retry.FixedDelayRetryStrategy;
 import hudson.plugins.sshslaves.verifiers.SshHostKeyVerificationStrategy;
 import hudson.security.ACL;
 import hudson.security.AccessControlled;
@@ -113,6 +115,11 @@ public class SSHConnector extends ComputerConnector {
 
     private SshHostKeyVerificationStrategy sshHostKeyVerificationStrategy;
 
+    /**
+     *  Field retryStrategy.
+     */
+    private ConnectionRetryStrategy retryStrategy;
+
     /**
      * Set the value to add to the remoting parameter -workDir
      * @see <a href="https://github.com/jenkinsci/remoting/blob/master/docs/workDir.md#remoting-work-directory">Remoting Work directory</a>
@@ -124,6 +131,21 @@ public class SSHConnector extends ComputerConnector {
      */
     private Boolean tcpNoDelay;
 
+    /**
+     *  Field reportRemoteEnvironment.
+     */
+    private Boolean reportRemoteEnvironment;
+
+    /**
+     *  Field remoteEnvironmentAllowlist.
+     */
+    private String remoteEnvironmentAllowlist;
+
+    /**
+     *  Field remoteEnvironmentMaxBytes.
+     */
+    private Integer remoteEnvironmentMaxBytes;
+
     /**
      * Constructor SSHLauncher creates a new SSHLauncher instance.
      *
@@ -190,6 +212,10 @@ public class SSHConnector extends ComputerConnector {
                 retryWaitTime,
                 sshHostKeyVerificationStrategy);
         sshLauncher.setWorkDir(workDir);
+        sshLauncher.setRetryStrategy(retryStrategy);
+        sshLauncher.setReportRemoteEnvironment(getReportRemoteEnvironment());
+        sshLauncher.setRemoteEnvironmentAllowlist(remoteEnvironmentAllowlist);
+        sshLauncher.setRemoteEnvironmentMaxBytes(remoteEnvironmentMaxBytes);
         sshLauncher.setTcpNoDelay(getTcpNoDelay());
         return sshLauncher;
     }
@@ -234,6 +260,11 @@ public class SSHConnector extends ComputerConnector {
         this.sshHostKeyVerificationStrategy = value;
     }
 
+    @DataBoundSetter
+    public void setRetryStrategy(ConnectionRetryStrategy value) {
+        this.retryStrategy = value;
+    }
+
     public void setPort(int value) {
         this.port = value == 0 ? DEFAULT_SSH_PORT : value;
     }
@@ -243,6 +274,21 @@ public class SSHConnector extends ComputerConnector {
         this.tcpNoDelay = tcpNoDelay;
     }
 
+    @DataBoundSetter
+    public void setReportRemoteEnvironment(Boolean reportRemoteEnvironment) {
+        this.reportRemoteEnvironment = reportRemoteEnvironment;
+    }
+
+    @DataBoundSetter
+    public void setRemoteEnvironmentAllowlist(String value) {
+        this.remoteEnvironmentAllowlist = fixEmptyAndTrim(value);
+    }
+
+    @DataBoundSetter
+    public void setRemoteEnvironmentMaxBytes(Integer value) {
+        this.remoteEnvironmentMaxBytes = value != null && value > 0 ? value : null;
+    }
+
     public SshHostKeyVerificationStrategy getSshHostKeyVerificationStrategy() {
         return sshHostKeyVerificationStrategy;
     }
@@ -292,6 +338,11 @@ public class SSHConnector extends ComputerConnector {
         return retryWaitTime;
     }
 
+    @NonNull
+    public ConnectionRetryStrategy getRetryStrategy() {
+        return retryStrategy != null ? retryStrategy : new FixedDelayRetryStrategy();
+    }
+
     public String getWorkDir() {
         return workDir;
     }
@@ -300,6 +351,18 @@ public class SSHConnector extends ComputerConnector {
         return tcpNoDelay != null ? tcpNoDelay : true;
     }
 
+    public Boolean getReportRemoteEnvironment() {
+        return reportRemoteEnvironment != null ? reportRemoteEnvironment : true;
+    }
+
+    public String getRemoteEnvironmentAllowlist() {
+        return remoteEnvironmentAllowlist;
+    }
+
+    public Integer getRemoteEnvironmentMaxBytes() {
+        return remoteEnvironmentMaxBytes != null ? remoteEnvironmentMaxBytes : 0;
+    }
+
     @Extension
     public static class DescriptorImpl extends ComputerConnectorDescriptor {
         @NonNull
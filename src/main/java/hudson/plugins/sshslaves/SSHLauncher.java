@@ -53,7 +53,10 @@ import hudson.model.ItemGroup;
 import hudson.model.Node;
 import hudson.model.Slave;
 import hudson.model.TaskListener;
+import hudson.plugins.sshslaves.retry.ConnectionRetryStrategy;
+import hudson.plugins.sshslaves.retry.FixedDelayRetryStrategy;
 import hudson.plugins.sshslaves.verifiers.HostKey;
+import hudson.plugins.sshslaves.verifiers.HostKeyRejectedException;
 import hudson.plugins.sshslaves.verifiers.NonVerifyingKeyVerificationStrategy;
 import hudson.plugins.sshslaves.verifiers.SshHostKeyVerificationStrategy;
 import hudson.security.ACL;
@@ -66,7 +69,6 @@ import hudson.slaves.SlaveComputer;
 import hudson.util.DescribableList;
 import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
-import hudson.util.NamingThreadFactory;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -74,24 +76,26 @@ import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.MessageFormat;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.jenkinsci.Symbol;
@@ -123,6 +127,53 @@ public class SSHLauncher extends ComputerLauncher {
     public static final String JAR_CACHE_DIR = "/remoting/jarCache";
     public static final int DEFAULT_SSH_PORT = 22;
 
+    /**
+     * Verify an already installed agent jar on the agent side (sidecar manifest, {@code sha256sum}) instead of
+     * streaming it back to the controller.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    @Restricted(NoExternalUse.class)
+    public static boolean REMOTE_AGENT_JAR_VERIFICATION =
+            SystemProperties.getBoolean(SSHLauncher.class.getName() + ".remoteAgentJarVerification", true);
+
+    /**
+     * Number of SFTP channels the agent jar is copied over at once, each writing its own range of the file. This is
+     * not pipelining on one channel: every channel above the first costs a channel open and an SFTP init round trip,
+     * so values above 1 only pay off when the jar takes many more round trips to copy than that.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    @Restricted(NoExternalUse.class)
+    public static int SFTP_UPLOAD_WINDOW =
+            SystemProperties.getInteger(SSHLauncher.class.getName() + ".sftpUploadWindow", 1);
+
+    /**
+     * Run the pre-flight checks (header junk, environment, working directory, installed agent jar) as a single script
+     * on the agent instead of one exec request each. Requires a Bourne compatible login shell, other shells
+     * fall back to the separate requests.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    @Restricted(NoExternalUse.class)
+    public static boolean BATCHED_PREFLIGHT =
+            SystemProperties.getBoolean(SSHLauncher.class.getName() + ".batchedPreflight", false);
+
+    /**
+     * Window size of the SSH session carrying the remoting channel, in KB. 0 sizes it from the round trip time
+     * measured when the agent starts and {@link #CHANNEL_BANDWIDTH_MBITS}.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    @Restricted(NoExternalUse.class)
+    public static int CHANNEL_WINDOW_SIZE_KB =
+            SystemProperties.getInteger(SSHLauncher.class.getName() + ".channelWindowSizeKB", 4096);
+
+    /**
+     * Bandwidth of the links to the agents in Mbit/s, used to size the window when {@link #CHANNEL_WINDOW_SIZE_KB} is
+     * 0.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    @Restricted(NoExternalUse.class)
+    public static int CHANNEL_BANDWIDTH_MBITS =
+            SystemProperties.getInteger(SSHLauncher.class.getName() + ".channelBandwidthMbits", 1000);
+
     /**
      * Field host
      */
@@ -200,13 +251,16 @@ public class SSHLauncher extends ComputerLauncher {
     @SuppressFBWarnings(value = "PA_PUBLIC_PRIMITIVE_ATTRIBUTE", justification = "Preserve API compatibility.")
     public Integer retryWaitTime;
 
-    // TODO: It is a bad idea to create a new Executor service for each launcher.
-    // Maybe a Remoting thread pool should be used, but it requires the logic rework to Futures
     /**
-     * Keeps executor service for the async launch operation.
+     * The async launch operation running on the {@link PluginImpl#getLauncherExecutor() shared launcher executor}.
      */
     @CheckForNull
-    private transient volatile ExecutorService launcherExecutorService;
+    private transient volatile Future<Boolean> launcherTask;
+
+    /**
+     * Times the phases of the launch in progress.
+     */
+    private transient volatile LaunchTimer launchTimer;
 
     /**
      * The verifier to use for checking the SSH key presented by the host
@@ -215,11 +269,34 @@ public class SSHLauncher extends ComputerLauncher {
     @CheckForNull
     private SshHostKeyVerificationStrategy sshHostKeyVerificationStrategy;
 
+    /**
+     * How long to wait between the retries of the initial connection, {@link FixedDelayRetryStrategy} if null.
+     */
+    @CheckForNull
+    private ConnectionRetryStrategy retryStrategy;
+
     /**
      * Allow to enable/disable the TCP_NODELAY flag on the SSH connection.
      */
     private Boolean tcpNoDelay;
 
+    /**
+     * Whether to report the environment of the agent user in the launch log, true if null.
+     */
+    private Boolean reportRemoteEnvironment;
+
+    /**
+     * The names of the remote environment variables to report, all of them if null.
+     */
+    @CheckForNull
+    private String remoteEnvironmentAllowlist;
+
+    /**
+     * The maximum number of bytes of the remote environment written to the launch log, no limit if null.
+     */
+    @CheckForNull
+    private Integer remoteEnvironmentMaxBytes;
+
     /**
      * Set the value to add to the remoting parameter -workDir
      * @see <a href="https://github.com/jenkinsci/remoting/blob/master/docs/workDir.md#remoting-work-directory">Remoting Work directory</a>
@@ -230,6 +307,7 @@ public class SSHLauncher extends ComputerLauncher {
 
         private final SlaveComputer computer;
         private final TaskListener listener;
+        private volatile boolean rejected;
 
         public ServerHostKeyVerifierImpl(final SlaveComputer computer, final TaskListener listener) {
             this.computer = computer;
@@ -242,7 +320,18 @@ public class SSHLauncher extends ComputerLauncher {
 
             final HostKey key = new HostKey(serverHostKeyAlgorithm, serverHostKey);
 
-            return getSshHostKeyVerificationStrategyDefaulted().verify(computer, key, listener);
+            try (LaunchTimer.Split split = time(LaunchTimer.Phase.HOST_KEY)) {
+                boolean verified = getSshHostKeyVerificationStrategyDefaulted().verify(computer, key, listener);
+                rejected = !verified;
+                return verified;
+            }
+        }
+
+        /**
+         * @return whether the last connection attempt failed because the host key was not trusted.
+         */
+        boolean isRejected() {
+            return rejected;
         }
     }
 
@@ -427,11 +516,10 @@ public class SSHLauncher extends ComputerLauncher {
                 return;
             }
             connection = new Connection(host, port);
-            launcherExecutorService = Executors.newSingleThreadExecutor(new NamingThreadFactory(
-                    Executors.defaultThreadFactory(), "SSHLauncher.launch for '" + computer.getName() + "' node"));
-            Set<Callable<Boolean>> callables = new HashSet<>();
-            callables.add(() -> {
+            Callable<Boolean> callable = () -> {
                 Boolean rval = Boolean.FALSE;
+                LaunchTimer timer = new LaunchTimer();
+                launchTimer = timer;
                 try {
                     String[] preferredKeyAlgorithms =
                             getSshHostKeyVerificationStrategyDefaulted().getPreferredKeyAlgorithms(computer);
@@ -445,9 +533,6 @@ public class SSHLauncher extends ComputerLauncher {
 
                     openConnection(listener, computer);
 
-                    verifyNoHeaderJunk(listener);
-                    reportEnvironment(listener);
-
                     final String workingDirectory = getWorkingDirectory(computer);
                     if (workingDirectory == null) {
                         listener.error("Cannot get the working directory for " + computer);
@@ -459,9 +544,37 @@ public class SSHLauncher extends ComputerLauncher {
                         java = expandExpression(computer, javaPath);
                     }
 
-                    copyAgentJar(listener, workingDirectory);
+                    RemoteProbe probe;
+                    try (LaunchTimer.Split split = timer.start(LaunchTimer.Phase.PREFLIGHT)) {
+                        probe = BATCHED_PREFLIGHT ? runPreflightProbe(listener, workingDirectory) : null;
+                        if (probe == null) {
+                            verifyNoHeaderJunk(listener);
+                        }
+                    }
+                    if (getReportRemoteEnvironment()) {
+                        try (LaunchTimer.Split split = timer.start(LaunchTimer.Phase.ENVIRONMENT)) {
+                            if (Util.isOverridden(
+                                    SSHLauncher.class, getClass(), "reportEnvironment", TaskListener.class)) {
+                                // keep running the report of subclasses customizing it
+                                reportEnvironment(listener);
+                                computer.removeActions(RemoteEnvironmentAction.class);
+                            } else {
+                                reportEnvironment(
+                                        listener, computer, probe != null ? probe.getEnvironment() : readEnvironment());
+                            }
+                        }
+                    } else {
+                        // do not leave the variables of an earlier launch on the computer
+                        computer.removeActions(RemoteEnvironmentAction.class);
+                    }
 
-                    startAgent(computer, listener, java, workingDirectory);
+                    try (LaunchTimer.Split split = timer.start(LaunchTimer.Phase.SFTP)) {
+                        copyAgentJar(listener, workingDirectory, probe);
+                    }
+
+                    try (LaunchTimer.Split split = timer.start(LaunchTimer.Phase.START_AGENT)) {
+                        startAgent(computer, listener, java, workingDirectory);
+                    }
 
                     PluginImpl.register(connection);
                     rval = Boolean.TRUE;
@@ -476,29 +589,29 @@ public class SSHLauncher extends ComputerLauncher {
                 } catch (IOException e) {
                     e.printStackTrace(listener.getLogger());
                 } finally {
+                    launchTimer = null;
+                    timer.record();
+                    listener.getLogger().println(Messages.SSHLauncher_LaunchPhases(getTimestamp(), timer));
                     return rval;
                 }
-            });
+            };
 
             final String nodeName = node != null ? node.getNodeName() : "unknown";
+            final Future<Boolean> task = PluginImpl.getLauncherExecutor()
+                    .submit(withThreadName("SSHLauncher.launch for '" + computer.getName() + "' node", callable));
+            launcherTask = task;
             try {
-                long time = System.currentTimeMillis();
-                List<Future<Boolean>> results;
-                final ExecutorService srv = launcherExecutorService;
-                if (srv == null) {
-                    throw new IllegalStateException(
-                            "Launcher Executor Service should be always non-null here, because the task allocates and closes service on its own");
-                }
-
-                results = srv.invokeAll(callables);
-                long duration = System.currentTimeMillis() - time;
+                long start = System.nanoTime();
                 Boolean res;
                 try {
-                    res = results.get(0).get();
+                    res = task.get();
                 } catch (CancellationException | ExecutionException e) {
                     res = Boolean.FALSE;
                     listener.getLogger().println(Messages.SSHLauncher_launchCanceled());
                 }
+                long nanos = System.nanoTime() - start;
+                LaunchTimer.getTotal().record(nanos);
+                long duration = TimeUnit.NANOSECONDS.toMillis(nanos);
                 if (!res) {
                     LOGGER.warning(() -> Messages.SSHLauncher_LaunchFailedDuration(nodeName, host, duration));
                     listener.getLogger().println(getTimestamp() + " Launch failed - cleaning up connection");
@@ -507,9 +620,10 @@ public class SSHLauncher extends ComputerLauncher {
                     LOGGER.fine(() -> Messages.SSHLauncher_LaunchCompletedDuration(nodeName, host, duration));
                 }
             } catch (InterruptedException e) {
+                task.cancel(true);
                 LOGGER.warning(() -> Messages.SSHLauncher_LaunchFailed(nodeName, host));
             } finally {
-                shutdownAndAwaitTerminationOfLauncher();
+                launcherTask = null;
             }
         }
         if (node != null && getTrackCredentials()) {
@@ -517,6 +631,17 @@ public class SSHLauncher extends ComputerLauncher {
         }
     }
 
+    /**
+     * Starts timing a phase of the launch in progress.
+     *
+     * @param phase the phase.
+     * @return the split to close when the phase ends, timing nothing when no launch is in progress.
+     */
+    private LaunchTimer.Split time(LaunchTimer.Phase phase) {
+        LaunchTimer timer = launchTimer;
+        return timer != null ? timer.start(phase) : LaunchTimer.Split.NONE;
+    }
+
     /**
      * try to run the Java command in the PATH ad report its version.
      * @param listener lister to print the output of the java command.
@@ -546,7 +671,7 @@ public class SSHLauncher extends ComputerLauncher {
         // we might be called multiple times from multiple finally/catch block,
         Connection _connection = connection;
         if (_connection != null) {
-            Computer.threadPoolForRemoting.submit(_connection::close);
+            PluginImpl.getTeardownExecutor().submit(_connection::close);
             connection = null;
             listener.getLogger().println(Messages.SSHLauncher_ConnectionClosed(getTimestamp()));
         }
@@ -616,6 +741,34 @@ public class SSHLauncher extends ComputerLauncher {
         }
     }
 
+    /**
+     * Runs the pre-flight checks as a single script on the agent.
+     *
+     * @param listener         The listener.
+     * @param workingDirectory The remote working directory.
+     * @return the probe result, or null if the output could not be parsed and the checks must run separately.
+     * @throws AbortException if the SSH connection produces unwanted text.
+     */
+    @CheckForNull
+    private RemoteProbe runPreflightProbe(TaskListener listener, String workingDirectory)
+            throws IOException, InterruptedException {
+        String marker = "SSHLauncher-" + UUID.randomUUID();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        connection.exec(RemoteProbe.script(marker, workingDirectory, getReportRemoteEnvironment()), out);
+        RemoteProbe probe = RemoteProbe.parse(marker, out.toString(Charset.defaultCharset()));
+        if (probe == null) {
+            listener.getLogger().println(Messages.SSHLauncher_PreflightProbeFailed(getTimestamp()));
+            return null;
+        }
+
+        if (!probe.getHeaderJunk().isEmpty()) {
+            listener.getLogger().println(Messages.SSHLauncher_SSHHeaderJunkDetected());
+            listener.getLogger().println(probe.getHeaderJunk());
+            throw new AbortException();
+        }
+        return probe;
+    }
+
     /**
      * Starts the agent process.
      *
@@ -641,7 +794,7 @@ public class SSHLauncher extends ComputerLauncher {
 
         session.pipeStderr(new DelegateNoCloseOutputStream(listener.getLogger()));
 
-        try {
+        try (LaunchTimer.Split split = time(LaunchTimer.Phase.CHANNEL)) {
             computer.setChannel(session.getStdout(), session.getStdin(), listener.getLogger(), null);
         } catch (InterruptedException e) {
             session.close();
@@ -663,9 +816,28 @@ public class SSHLauncher extends ComputerLauncher {
         // it's worth using a bigger buffer to really better utilize bandwidth even when the latency is even larger
         // (and since we are draining this pipe very rapidly, it's unlikely that we'll actually accumulate this much
         // data)
-        int sz = 4;
-        session.setWindowSize(sz * 1024 * 1024);
-        listener.getLogger().println("Expanded the channel window size to " + sz + "MB");
+        if (CHANNEL_WINDOW_SIZE_KB > 0) {
+            int sz = (int) Math.min(ChannelWindow.MAX_SIZE / 1024, CHANNEL_WINDOW_SIZE_KB);
+            session.setWindowSize(sz * 1024);
+            listener.getLogger().println(Messages.SSHLauncher_ChannelWindowSize(getTimestamp(), sz));
+            return;
+        }
+        // size it from the bandwidth-delay product, so long fat links are not stalled waiting for window
+        // adjustments and local ones do not hold megabytes of buffer each
+        long rtt;
+        try {
+            rtt = ChannelWindow.measureRoundTrip(connection);
+        } catch (IOException e) {
+            rtt = -1;
+        }
+        int sz = rtt < 0 ? 4 * 1024 * 1024 : ChannelWindow.forRoundTrip(rtt, CHANNEL_BANDWIDTH_MBITS);
+        session.setWindowSize(sz);
+        listener.getLogger()
+                .println(Messages.SSHLauncher_ChannelWindowSizeMeasured(
+                        getTimestamp(),
+                        sz / 1024,
+                        rtt < 0 ? "?" : String.format(Locale.ROOT, "%.2f", rtt / 1_000_000.0),
+                        CHANNEL_BANDWIDTH_MBITS));
     }
 
     /**
@@ -673,10 +845,13 @@ public class SSHLauncher extends ComputerLauncher {
      *
      * @param listener         The listener.
      * @param workingDirectory The directory into which the agent jar will be copied.
+     * @param probe            The result of the pre-flight probe, null to check the working directory and the
+     *                         installed agent jar over SFTP.
      *
      * @throws IOException If something goes wrong.
      */
-    private void copyAgentJar(TaskListener listener, String workingDirectory) throws IOException, InterruptedException {
+    private void copyAgentJar(TaskListener listener, String workingDirectory, @CheckForNull RemoteProbe probe)
+            throws IOException, InterruptedException {
         String fileName = workingDirectory + SLASH_AGENT_JAR;
 
         listener.getLogger().println(Messages.SSHLauncher_StartingSFTPClient(getTimestamp()));
@@ -685,30 +860,73 @@ public class SSHLauncher extends ComputerLauncher {
             sftpClient = new SFTPClient(connection);
 
             try {
-                SFTPv3FileAttributes fileAttributes = sftpClient._stat(workingDirectory);
-                if (fileAttributes == null) {
+                boolean workDirMissing;
+                boolean workDirIsAFile;
+                if (probe != null) {
+                    workDirMissing = probe.getWorkDirState() == RemoteProbe.WorkDirState.MISSING;
+                    workDirIsAFile = probe.getWorkDirState() == RemoteProbe.WorkDirState.FILE;
+                } else {
+                    SFTPv3FileAttributes fileAttributes;
+                    try (LaunchTimer.Split split = time(LaunchTimer.Phase.SFTP_STAT)) {
+                        fileAttributes = sftpClient._stat(workingDirectory);
+                    }
+                    workDirMissing = fileAttributes == null;
+                    workDirIsAFile = fileAttributes != null && fileAttributes.isRegularFile();
+                }
+                if (workDirMissing) {
                     listener.getLogger()
                             .println(Messages.SSHLauncher_RemoteFSDoesNotExist(getTimestamp(), workingDirectory));
                     sftpClient.mkdirs(workingDirectory, 0700);
-                } else if (fileAttributes.isRegularFile()) {
+                } else if (workDirIsAFile) {
                     throw new IOException(Messages.SSHLauncher_RemoteFSIsAFile(workingDirectory));
                 }
 
                 listener.getLogger().println(Messages.SSHLauncher_CopyingAgentJar(getTimestamp()));
-                byte[] agentJar = new Slave.JnlpJar(AGENT_JAR).readFully();
+                AgentJarCache.AgentJar cachedAgentJar = AgentJarCache.get();
+                byte[] agentJar = cachedAgentJar.getBytes();
 
                 // If the agent jar already exists see if it needs to be updated
                 boolean overwrite = true;
-                if (sftpClient.exists(fileName)) {
-                    String sourceAgentHash = getMd5Hash(agentJar);
-                    String existingAgentHash =
-                            getMd5Hash(readInputStreamIntoByteArrayAndClose(sftpClient.read(fileName)));
+                String sourceAgentHash = cachedAgentJar.getSha256();
+                if (probe != null && probe.getAgentJarSha256() != null) {
                     listener.getLogger()
                             .println(MessageFormat.format(
                                     "Source agent hash is {0}. " + "Installed agent hash is {1}",
-                                    sourceAgentHash, existingAgentHash));
-
-                    overwrite = !sourceAgentHash.equals(existingAgentHash);
+                                    sourceAgentHash, probe.getAgentJarSha256()));
+                    overwrite = !sourceAgentHash.equals(probe.getAgentJarSha256());
+                } else if (probe == null || probe.isAgentJarPresent()) {
+                    SFTPv3FileAttributes existingAgentJar;
+                    try (LaunchTimer.Split split = time(LaunchTimer.Phase.SFTP_STAT)) {
+                        existingAgentJar = sftpClient._stat(fileName);
+                    }
+                    if (existingAgentJar != null) {
+                        if (existingAgentJar.size != null && existingAgentJar.size != agentJar.length) {
+                            listener.getLogger()
+                                    .println(MessageFormat.format(
+                                            "Installed agent jar has {0} bytes, source agent jar has {1} bytes",
+                                            existingAgentJar.size, agentJar.length));
+                        } else {
+                            String existingAgentHash;
+                            boolean manifestUpToDate;
+                            try (LaunchTimer.Split split = time(LaunchTimer.Phase.AGENT_JAR_HASH)) {
+                                AgentJarManifest manifest =
+                                        readAgentJarManifest(sftpClient, fileName, existingAgentJar);
+                                manifestUpToDate = manifest != null;
+                                existingAgentHash = manifestUpToDate
+                                        ? manifest.getSha256()
+                                        : getInstalledAgentHash(sftpClient, fileName, listener);
+                            }
+                            listener.getLogger()
+                                    .println(MessageFormat.format(
+                                            "Source agent hash is {0}. " + "Installed agent hash is {1}",
+                                            sourceAgentHash, existingAgentHash));
+
+                            overwrite = !sourceAgentHash.equalsIgnoreCase(existingAgentHash);
+                            if (!overwrite && !manifestUpToDate) {
+                                writeAgentJarManifest(sftpClient, fileName, sourceAgentHash, existingAgentJar);
+                            }
+                        }
+                    }
                 }
 
                 if (overwrite) {
@@ -720,15 +938,20 @@ public class SSHLauncher extends ComputerLauncher {
                         // the file did not exist... so no need to delete it!
                     }
 
-                    try (OutputStream os = sftpClient.writeToFile(fileName)) {
-                        os.write(agentJar);
+                    try (LaunchTimer.Split split = time(LaunchTimer.Phase.AGENT_JAR_UPLOAD)) {
+                        long start = System.nanoTime();
+                        PipelinedSFTPUpload.upload(connection, sftpClient, fileName, agentJar, SFTP_UPLOAD_WINDOW);
                         listener.getLogger()
-                                .println(Messages.SSHLauncher_CopiedXXXBytes(getTimestamp(), agentJar.length));
+                                .println(Messages.SSHLauncher_CopiedXXXBytesInMillis(
+                                        getTimestamp(),
+                                        agentJar.length,
+                                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
                     } catch (Error error) {
                         throw error;
                     } catch (Throwable e) {
                         throw new IOException(Messages.SSHLauncher_ErrorCopyingAgentJarTo(fileName), e);
                     }
+                    writeAgentJarManifest(sftpClient, fileName, sourceAgentHash, sftpClient._stat(fileName));
                 } else {
                     listener.getLogger().println("Verified agent jar. No update is necessary.");
                 }
@@ -741,7 +964,7 @@ public class SSHLauncher extends ComputerLauncher {
             if (sftpClient == null) {
                 e.printStackTrace(listener.error(Messages.SSHLauncher_StartingSCPClient(getTimestamp())));
                 // lets try to recover if the agent doesn't have an SFTP service
-                copySlaveJarUsingSCP(listener, workingDirectory);
+                copySlaveJarUsingSCP(listener, workingDirectory, probe);
             } else {
                 throw e;
             }
@@ -752,6 +975,119 @@ public class SSHLauncher extends ComputerLauncher {
         }
     }
 
+    /**
+     * Computes the SHA-256 of the agent jar installed on the remote system without copying it back to the controller.
+     * {@code sha256sum} or {@code shasum} is run on the agent when available, otherwise the jar is streamed through
+     * a digest over SFTP.
+     *
+     * @param sftpClient The SFTP client.
+     * @param fileName   The path of the installed agent jar.
+     * @param listener   The listener.
+     * @return the lower case hex SHA-256 of the installed agent jar.
+     */
+    private String getInstalledAgentHash(SFTPClient sftpClient, String fileName, TaskListener listener)
+            throws IOException, InterruptedException, NoSuchAlgorithmException {
+        if (REMOTE_AGENT_JAR_VERIFICATION) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            String file = shellQuote(fileName);
+            int ret = connection.exec(
+                    "sha256sum " + file + " 2>/dev/null || shasum -a 256 " + file + " 2>/dev/null", out);
+            String[] tokens = out.toString(StandardCharsets.UTF_8).trim().split("\\s+", 2);
+            if (ret == 0 && AgentJarManifest.isSha256(tokens[0])) {
+                return tokens[0].toLowerCase(Locale.ENGLISH);
+            }
+            listener.getLogger().println("Cannot compute the installed agent hash on the agent, reading it over SFTP");
+        }
+        return getSha256Hash(sftpClient.read(fileName));
+    }
+
+    /**
+     * Reads the sidecar manifest of the agent jar.
+     *
+     * @param attributes the current attributes of the agent jar.
+     * @return the manifest, or null if there is none, it cannot be read or it cannot be trusted for the agent jar.
+     */
+    @CheckForNull
+    private static AgentJarManifest readAgentJarManifest(
+            SFTPClient sftpClient, String fileName, SFTPv3FileAttributes attributes) {
+        if (!REMOTE_AGENT_JAR_VERIFICATION) {
+            return null;
+        }
+        try {
+            String manifestFile = fileName + AgentJarManifest.SUFFIX;
+            SFTPv3FileAttributes manifestAttributes = sftpClient._stat(manifestFile);
+            if (manifestAttributes == null) {
+                return null;
+            }
+            byte[] content = readInputStreamIntoByteArrayAndClose(sftpClient.read(manifestFile));
+            AgentJarManifest manifest = AgentJarManifest.parse(new String(content, StandardCharsets.UTF_8));
+            return manifest != null && manifest.matches(attributes, manifestAttributes) ? manifest : null;
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Cannot read the agent jar manifest of " + fileName, e);
+            return null;
+        }
+    }
+
+    /**
+     * Records the hash, size and modification time of the agent jar in its sidecar manifest. Failures are ignored,
+     * the next launch will just verify the agent jar the slow way.
+     */
+    private static void writeAgentJarManifest(
+            SFTPClient sftpClient, String fileName, String sha256, @CheckForNull SFTPv3FileAttributes attributes) {
+        AgentJarManifest manifest = AgentJarManifest.of(sha256, attributes);
+        if (!REMOTE_AGENT_JAR_VERIFICATION || manifest == null) {
+            return;
+        }
+        String manifestFile = fileName + AgentJarManifest.SUFFIX;
+        try (OutputStream os = sftpClient.writeToFile(manifestFile)) {
+            os.write(manifest.format().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Cannot write the agent jar manifest " + manifestFile, e);
+        }
+    }
+
+    /**
+     * Quotes a value for a POSIX shell command line, so that nothing in it is expanded.
+     *
+     * @param value the value.
+     * @return the value between single quotes, each single quote in it written as {@code '\''}.
+     */
+    static String shellQuote(String value) {
+        return "'" + value.replace("'", "'\\''") + "'";
+    }
+
+    /**
+     * Method reads a byte array and returns a lower case SHA-256 hash for it.
+     *
+     * @param bytes
+     * @return
+     * @throws NoSuchAlgorithmException
+     */
+    static String getSha256Hash(byte[] bytes) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+
+    /**
+     * Method reads an input stream through a SHA-256 digest and closes it when finished, without buffering the whole
+     * content.
+     *
+     * @param inputStream
+     * @return the lower case SHA-256 hash of the content.
+     * @throws IOException
+     * @throws NoSuchAlgorithmException
+     */
+    static String getSha256Hash(InputStream inputStream) throws IOException, NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        try (InputStream in = inputStream) {
+            byte[] buffer = new byte[32768];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                md.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
     /**
      * Method reads a byte array and returns an upper case md5 hash for it.
      *
@@ -811,89 +1147,289 @@ public class SSHLauncher extends ComputerLauncher {
      *
      * @param listener         The listener.
      * @param workingDirectory The directory into which the agent jar will be copied.
+     * @param probe            The result of the pre-flight probe, null if it did not run.
      *
      * @throws IOException If something goes wrong.
      * @throws InterruptedException If something goes wrong.
      */
-    private void copySlaveJarUsingSCP(TaskListener listener, String workingDirectory)
+    private void copySlaveJarUsingSCP(TaskListener listener, String workingDirectory, @CheckForNull RemoteProbe probe)
             throws IOException, InterruptedException {
         SCPClient scp = new SCPClient(connection);
         try {
-            // check if the working directory exists
-            if (connection.exec("test -d " + workingDirectory, listener.getLogger()) != 0) {
-                listener.getLogger()
-                        .println(Messages.SSHLauncher_RemoteFSDoesNotExist(getTimestamp(), workingDirectory));
-                // working directory doesn't exist, lets make it.
-                if (connection.exec("mkdir -p " + workingDirectory, listener.getLogger()) != 0) {
+            if (probe != null) {
+                // the probe already told whether the working directory exists, prepare it with a single request
+                if (probe.getWorkDirState() != RemoteProbe.WorkDirState.DIRECTORY) {
+                    listener.getLogger()
+                            .println(Messages.SSHLauncher_RemoteFSDoesNotExist(getTimestamp(), workingDirectory));
+                }
+                String cmd = "mkdir -p " + workingDirectory + " && rm -f " + workingDirectory + SLASH_AGENT_JAR;
+                if (connection.exec(cmd, listener.getLogger()) != 0) {
                     listener.getLogger().println("Failed to create " + workingDirectory);
                 }
-            }
+            } else {
+                // check if the working directory exists
+                if (connection.exec("test -d " + workingDirectory, listener.getLogger()) != 0) {
+                    listener.getLogger()
+                            .println(Messages.SSHLauncher_RemoteFSDoesNotExist(getTimestamp(), workingDirectory));
+                    // working directory doesn't exist, lets make it.
+                    if (connection.exec("mkdir -p " + workingDirectory, listener.getLogger()) != 0) {
+                        listener.getLogger().println("Failed to create " + workingDirectory);
+                    }
+                }
 
-            // delete the agent jar as we do with SFTP
-            connection.exec("rm " + workingDirectory + SLASH_AGENT_JAR, OutputStream.nullOutputStream());
+                // delete the agent jar as we do with SFTP
+                connection.exec("rm " + workingDirectory + SLASH_AGENT_JAR, OutputStream.nullOutputStream());
+            }
 
             // SCP it to the agent. hudson.Util.ByteArrayOutputStream2 doesn't work for this. It pads the byte array.
             listener.getLogger().println(Messages.SSHLauncher_CopyingAgentJar(getTimestamp()));
-            scp.put(new Slave.JnlpJar(AGENT_JAR).readFully(), AGENT_JAR, workingDirectory, "0644");
+            byte[] agentJar = AgentJarCache.get().getBytes();
+            long start = System.nanoTime();
+            try (LaunchTimer.Split split = time(LaunchTimer.Phase.AGENT_JAR_UPLOAD)) {
+                scp.put(agentJar, AGENT_JAR, workingDirectory, "0644");
+            }
+            listener.getLogger()
+                    .println(Messages.SSHLauncher_CopiedXXXBytesInMillis(
+                            getTimestamp(),
+                            agentJar.length,
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
         } catch (IOException e) {
             throw new IOException(Messages.SSHLauncher_ErrorCopyingAgentJarInto(workingDirectory), e);
         }
     }
 
+    /**
+     * Writes the whole environment of the agent user to the launch log.
+     *
+     * @param listener The listener.
+     * @deprecated {@link #launch} only calls it when a subclass overrides it, the allowed variables and the maximum
+     * size of the report are then ignored. Otherwise it reports the environment itself, reusing the one listed by the
+     * pre-flight probe when it ran.
+     */
+    @Deprecated
     protected void reportEnvironment(TaskListener listener) throws IOException, InterruptedException {
         listener.getLogger().println(Messages._SSHLauncher_RemoteUserEnvironment(getTimestamp()));
         connection.exec("set", listener.getLogger());
     }
 
+    /**
+     * @return the output of {@code set} on the agent.
+     */
+    private String readEnvironment() throws IOException, InterruptedException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        connection.exec("set", out);
+        return out.toString(Charset.defaultCharset());
+    }
+
+    /**
+     * Writes the environment of the agent user to the launch log, limited to the allowed variables and to the
+     * maximum size. When only some variables are allowed, they are also attached to the computer as a
+     * {@link RemoteEnvironmentAction}, the whole environment of every agent is not kept on the controller.
+     *
+     * @param listener    The listener.
+     * @param computer    The computer being launched.
+     * @param environment The output of {@code set} on the agent.
+     */
+    private void reportEnvironment(TaskListener listener, SlaveComputer computer, String environment) {
+        Set<String> allowlist = RemoteEnvironment.parseAllowlist(remoteEnvironmentAllowlist);
+        String filtered = RemoteEnvironment.filter(environment, allowlist);
+        String logged = RemoteEnvironment.truncate(filtered, getRemoteEnvironmentMaxBytes());
+
+        PrintStream logger = listener.getLogger();
+        logger.println(Messages._SSHLauncher_RemoteUserEnvironment(getTimestamp()));
+        logger.print(logged);
+        if (logged.length() < filtered.length()) {
+            logger.println();
+            logger.println(Messages.SSHLauncher_RemoteEnvironmentTruncated(
+                    getTimestamp(), getRemoteEnvironmentMaxBytes()));
+        }
+
+        if (allowlist.isEmpty()) {
+            computer.removeActions(RemoteEnvironmentAction.class);
+        } else {
+            computer.replaceAction(new RemoteEnvironmentAction(RemoteEnvironment.parse(filtered)));
+        }
+    }
+
     protected void openConnection(final TaskListener listener, final SlaveComputer computer)
             throws IOException, InterruptedException {
         PrintStream logger = listener.getLogger();
         logger.println(Messages.SSHLauncher_OpeningSSHConnection(getTimestamp(), host + ":" + port));
         connection.setTCPNoDelay(getTcpNoDelay());
 
-        int maxNumRetries = getMaxNumRetries();
-        for (int i = 0; i <= maxNumRetries; i++) {
+        LaunchScheduler.Permit permit;
+        try (LaunchTimer.Split split = time(LaunchTimer.Phase.CONNECT)) {
+            permit = connectWithRetries(
+                    logger,
+                    getMaxNumRetries(),
+                    TimeUnit.SECONDS.toMillis(getRetryWaitTime()),
+                    getRetryStrategy(),
+                    () -> acquireLaunchSlot(listener),
+                    () -> {
+                        ServerHostKeyVerifierImpl verifier = new ServerHostKeyVerifierImpl(computer, listener);
+                        try {
+                            int launchTimeoutMillis = (int) getLaunchTimeoutMillis();
+                            connection.connect(
+                                    verifier,
+                                    launchTimeoutMillis,
+                                    0 /*read timeout - JENKINS-48618*/,
+                                    (int) (launchTimeoutMillis + TimeUnit.SECONDS.toMillis(5)));
+                        } catch (IOException | RuntimeException e) {
+                            connection.close();
+                            if (verifier.isRejected()) {
+                                throw new HostKeyRejectedException(getFailureMessage(e), e);
+                            }
+                            throw e;
+                        }
+                    },
+                    millis -> {
+                        try (LaunchTimer.Split wait = time(LaunchTimer.Phase.RETRY_WAIT)) {
+                            Thread.sleep(millis);
+                        }
+                    });
+        }
+
+        // the slot covers the key exchange and the authentication, not the rest of the launch
+        boolean authenticated;
+        try (LaunchScheduler.Permit held = permit) {
+            StandardUsernameCredentials credentials = getCredentials();
+            if (credentials == null) {
+                throw new AbortException("Cannot find SSH User credentials with id: " + credentialsId);
+            }
+            try (LaunchTimer.Split split = time(LaunchTimer.Phase.AUTHENTICATION)) {
+                authenticated = SSHAuthenticator.newInstance(connection, credentials).authenticate(listener)
+                        && connection.isAuthenticationComplete();
+            }
+        }
+        if (authenticated) {
+            logger.println(Messages.SSHLauncher_AuthenticationSuccessful(getTimestamp()));
+        } else {
+            logger.println(Messages.SSHLauncher_AuthenticationFailed(getTimestamp()));
+            throw new AbortException(Messages.SSHLauncher_AuthenticationFailedException());
+        }
+    }
+
+    /**
+     * Waits for a launch slot to this host, see {@link LaunchScheduler}.
+     *
+     * @param listener The listener.
+     * @return the permit to close once the connection is authenticated.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private LaunchScheduler.Permit acquireLaunchSlot(TaskListener listener) throws InterruptedException {
+        LaunchScheduler.Permit permit;
+        try (LaunchTimer.Split split = time(LaunchTimer.Phase.SLOT_WAIT)) {
+            permit = LaunchScheduler.get().acquire(host);
+        }
+        if (permit.getWaitedMillis() > 0) {
+            listener.getLogger()
+                    .println(Messages.SSHLauncher_WaitedForLaunchSlot(getTimestamp(), permit.getWaitedMillis()));
+        }
+        return permit;
+    }
+
+    /**
+     * Takes the launch slot held during one connection attempt.
+     */
+    @FunctionalInterface
+    interface LaunchSlot {
+        LaunchScheduler.Permit acquire() throws InterruptedException;
+    }
+
+    /**
+     * One attempt to open the SSH connection. A failed attempt leaves the connection closed.
+     */
+    @FunctionalInterface
+    interface ConnectAttempt {
+        void connect() throws IOException;
+    }
+
+    /**
+     * Waits between two connection attempts.
+     */
+    @FunctionalInterface
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    /**
+     * Makes connection attempts until one succeeds. The wait between two attempts is chosen by the retry strategy,
+     * there is no wait after a successful attempt nor after the last failed one. Each attempt holds a launch slot,
+     * which a failed attempt releases before waiting, so a host that does not answer does not keep a slot during the
+     * retries.
+     *
+     * @param logger          the launch log.
+     * @param maxNumRetries   the number of attempts to make after the first one.
+     * @param retryWaitMillis the configured wait between retries, in milliseconds.
+     * @param retryStrategy   the strategy classifying the failures and computing the waits.
+     * @param slots           takes the launch slot of an attempt.
+     * @param attempt         the connection attempt.
+     * @param sleeper         waits between two attempts.
+     * @return the launch slot of the successful attempt, to close once the connection is set up.
+     * @throws AbortException       if the last attempt failed or a failure is not worth retrying.
+     * @throws InterruptedException if interrupted while waiting for a slot or for the next attempt.
+     */
+    static LaunchScheduler.Permit connectWithRetries(
+            PrintStream logger,
+            int maxNumRetries,
+            long retryWaitMillis,
+            ConnectionRetryStrategy retryStrategy,
+            LaunchSlot slots,
+            ConnectAttempt attempt,
+            Sleeper sleeper)
+            throws AbortException, InterruptedException {
+        long delayMillis = retryWaitMillis;
+        for (int i = 0; ; i++) {
+            LaunchScheduler.Permit permit = slots.acquire();
+            boolean connected = false;
             try {
-                int launchTimeoutMillis = (int) getLaunchTimeoutMillis();
-                connection.connect(
-                        new ServerHostKeyVerifierImpl(computer, listener),
-                        launchTimeoutMillis,
-                        0 /*read timeout - JENKINS-48618*/,
-                        (int) (launchTimeoutMillis + TimeUnit.SECONDS.toMillis(5)));
-                break;
+                attempt.connect();
+                connected = true;
+                return permit;
             } catch (Exception ex) {
-                String message = "unknown error";
-                Throwable cause = ex.getCause();
-                if (cause != null) {
-                    message = cause.getMessage();
-                    logger.println(message);
-                } else if (ex.getMessage() != null) {
-                    message = ex.getMessage();
+                String message = getFailureMessage(ex);
+                if (message != null) {
                     logger.println(message);
+                } else {
+                    message = "unknown error";
                 }
 
-                connection.close();
+                if (!retryStrategy.isRetryable(ex)) {
+                    throw new AbortException(Messages.SSHLauncher_ConnectionNotRetried(getTimestamp(), message));
+                }
+                if (i >= maxNumRetries) {
+                    throw new AbortException(Messages.SSHLauncher_ConnectionFailed(getTimestamp(), i + 1, message));
+                }
 
-                if (maxNumRetries - i > 0) {
-                    logger.println("SSH Connection failed with IOException: \"" + message
-                            + "\", retrying in " + getRetryWaitTime() + " seconds." + " There are "
-                            + (maxNumRetries - i) + " more retries left.");
+                delayMillis = retryStrategy.getDelayMillis(i + 1, retryWaitMillis, delayMillis);
+                logger.println("SSH Connection failed with IOException: \"" + message
+                        + "\", retrying in " + formatSeconds(delayMillis) + " seconds." + " There are "
+                        + (maxNumRetries - i) + " more retries left.");
+            } finally {
+                if (!connected) {
+                    permit.close();
                 }
             }
-            Thread.sleep(TimeUnit.SECONDS.toMillis(getRetryWaitTime()));
+            sleeper.sleep(delayMillis);
         }
+    }
 
-        StandardUsernameCredentials credentials = getCredentials();
-        if (credentials == null) {
-            throw new AbortException("Cannot find SSH User credentials with id: " + credentialsId);
-        }
-        if (SSHAuthenticator.newInstance(connection, credentials).authenticate(listener)
-                && connection.isAuthenticationComplete()) {
-            logger.println(Messages.SSHLauncher_AuthenticationSuccessful(getTimestamp()));
-        } else {
-            logger.println(Messages.SSHLauncher_AuthenticationFailed(getTimestamp()));
-            throw new AbortException(Messages.SSHLauncher_AuthenticationFailedException());
+    /**
+     * @return the message describing why a connection attempt failed, null if there is none.
+     */
+    @CheckForNull
+    private static String getFailureMessage(Exception ex) {
+        if (ex instanceof HostKeyRejectedException) {
+            return ex.getMessage();
         }
+        Throwable cause = ex.getCause();
+        return cause != null ? cause.getMessage() : ex.getMessage();
+    }
+
+    private static String formatSeconds(long millis) {
+        return millis % 1000 == 0
+                ? String.valueOf(millis / 1000)
+                : String.format(Locale.ENGLISH, "%.1f", millis / 1000.0);
     }
 
     private void checkConfig() throws InterruptedException {
@@ -940,7 +1476,7 @@ public class SSHLauncher extends ComputerLauncher {
             // Nothing to do here, the connection is not established
             return;
         }
-        shutdownAndAwaitTerminationOfLauncher();
+        cancelLauncherTask();
 
         if (tearingDownConnection) {
             // tear down operation is in progress, do not even try to synchronize the call.
@@ -988,28 +1524,33 @@ public class SSHLauncher extends ComputerLauncher {
         }
     }
 
-    private void shutdownAndAwaitTerminationOfLauncher() {
-        ExecutorService srv = launcherExecutorService;
-        if (srv == null) {
+    /**
+     * Interrupts the launch operation if it is still running.
+     */
+    private void cancelLauncherTask() {
+        Future<Boolean> task = launcherTask;
+        if (task == null) {
             return;
         }
-        srv.shutdown(); // Disable new tasks from being submitted
-        launcherExecutorService = null;
-        try {
-            // Wait a while for existing tasks to terminate
-            if (!srv.awaitTermination(10, TimeUnit.SECONDS)) {
-                srv.shutdownNow(); // Cancel currently executing tasks
-                // Wait a while for tasks to respond to being cancelled
-                if (!srv.awaitTermination(10, TimeUnit.SECONDS)) {
-                    LOGGER.log(WARNING, "launcherExecutorService thread pool did not terminate cleanly");
-                }
+        launcherTask = null;
+        task.cancel(true);
+    }
+
+    /**
+     * Names the thread running the callable after the launch it is working for, the shared launcher executor
+     * threads are reused by many launches.
+     */
+    private static <V> Callable<V> withThreadName(String name, Callable<V> callable) {
+        return () -> {
+            Thread thread = Thread.currentThread();
+            String oldName = thread.getName();
+            thread.setName(name);
+            try {
+                return callable.call();
+            } finally {
+                thread.setName(oldName);
             }
-        } catch (InterruptedException ie) {
-            // (Re-)Cancel if current thread also interrupted
-            srv.shutdownNow();
-            // Preserve interrupt status
-            Thread.currentThread().interrupt();
-        }
+        };
     }
 
     /**
@@ -1062,6 +1603,21 @@ public class SSHLauncher extends ComputerLauncher {
         this.sshHostKeyVerificationStrategy = value;
     }
 
+    /**
+     * Getter for property 'retryStrategy'
+     *
+     * @return the strategy computing the wait between the retries of the initial connection.
+     */
+    @NonNull
+    public ConnectionRetryStrategy getRetryStrategy() {
+        return retryStrategy != null ? retryStrategy : new FixedDelayRetryStrategy();
+    }
+
+    @DataBoundSetter
+    public void setRetryStrategy(@CheckForNull ConnectionRetryStrategy value) {
+        this.retryStrategy = value;
+    }
+
     @DataBoundSetter
     public void setJvmOptions(String value) {
         this.jvmOptions = fixEmpty(value);
@@ -1182,6 +1738,34 @@ public class SSHLauncher extends ComputerLauncher {
         this.tcpNoDelay = tcpNoDelay;
     }
 
+    public boolean getReportRemoteEnvironment() {
+        return reportRemoteEnvironment != null ? reportRemoteEnvironment : true;
+    }
+
+    @DataBoundSetter
+    public void setReportRemoteEnvironment(boolean reportRemoteEnvironment) {
+        this.reportRemoteEnvironment = reportRemoteEnvironment;
+    }
+
+    @CheckForNull
+    public String getRemoteEnvironmentAllowlist() {
+        return remoteEnvironmentAllowlist;
+    }
+
+    @DataBoundSetter
+    public void setRemoteEnvironmentAllowlist(@CheckForNull String value) {
+        this.remoteEnvironmentAllowlist = Util.fixEmptyAndTrim(value);
+    }
+
+    public int getRemoteEnvironmentMaxBytes() {
+        return remoteEnvironmentMaxBytes != null ? remoteEnvironmentMaxBytes : 0;
+    }
+
+    @DataBoundSetter
+    public void setRemoteEnvironmentMaxBytes(Integer value) {
+        this.remoteEnvironmentMaxBytes = value != null && value > 0 ? value : null;
+    }
+
     /**
      * Enable/Disable the credential tracking, this tracking store information about where it is used a credential,
      * in this case in a node. If the tracking is enabled and you launch a big number of Agents per day, activate
@@ -1405,6 +1989,7 @@ public class SSHLauncher extends ComputerLauncher {
                         sshHostKeyVerificationStrategy != null
                                 ? sshHostKeyVerificationStrategy.getClass().getName()
                                 : "None");
+        sb.append(", retryStrategy=").append(getRetryStrategy().getClass().getName());
         sb.append(", tcpNoDelay=").append(getTcpNoDelay());
         sb.append(", trackCredentials=").append(getTrackCredentials());
         sb.append('}');
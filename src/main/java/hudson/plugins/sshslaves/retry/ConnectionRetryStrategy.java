@@ -0,0 +1,116 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2004-, all the contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.sshslaves.retry;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.AbortException;
+import hudson.model.Describable;
+import hudson.model.Descriptor;
+import hudson.plugins.sshslaves.Messages;
+import hudson.plugins.sshslaves.verifiers.HostKeyRejectedException;
+import hudson.util.FormValidation;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import jenkins.model.Jenkins;
+
+/**
+ * Decides whether a failed attempt to open the SSH connection of an agent is worth retrying, and how long to wait
+ * before the next attempt.
+ */
+public abstract class ConnectionRetryStrategy implements Describable<ConnectionRetryStrategy> {
+
+    /**
+     * The default upper bound of the wait between two attempts, in seconds.
+     */
+    public static final int DEFAULT_MAX_WAIT_TIME = 300;
+
+    @Override
+    public ConnectionRetryStrategyDescriptor getDescriptor() {
+        return (ConnectionRetryStrategyDescriptor) Jenkins.get().getDescriptorOrDie(getClass());
+    }
+
+    /**
+     * Computes the wait before the next connection attempt.
+     *
+     * @param retry          the number of the retry about to be made, starting at 1.
+     * @param baseMillis     the configured wait between retries, in milliseconds.
+     * @param previousMillis the wait before the previous retry, {@code baseMillis} before the first retry.
+     * @return the number of milliseconds to wait, never negative.
+     */
+    public abstract long getDelayMillis(int retry, long baseMillis, long previousMillis);
+
+    /**
+     * Classifies a failed connection attempt. A rejected host key or an aborted launch will fail the same way on the
+     * next attempt, so they are fatal; network errors such as a refused connection or a timeout are retried.
+     *
+     * @param failure the exception thrown by the connection attempt.
+     * @return whether another attempt may succeed.
+     */
+    public boolean isRetryable(@NonNull Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof HostKeyRejectedException || t instanceof AbortException) {
+                return false;
+            }
+        }
+        return !isInterrupted(failure);
+    }
+
+    /**
+     * @return whether the connection attempt failed because the launch was interrupted, a timeout does not count.
+     */
+    static boolean isInterrupted(@NonNull Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof InterruptedIOException && !(t instanceof SocketTimeoutException)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Converts a wait time in seconds to milliseconds, negative values are treated as 0.
+     */
+    static long toMillis(int seconds) {
+        return Math.max(0, seconds) * 1000L;
+    }
+
+    /**
+     * Validates a maximum wait time field.
+     */
+    static FormValidation checkMaxWaitTime(String value) {
+        if (value == null || value.isBlank()) {
+            return FormValidation.ok();
+        }
+        try {
+            if (Integer.parseInt(value.trim()) < 0) {
+                return FormValidation.error(Messages.ConnectionRetryStrategy_MaxWaitTimeMustBePositive());
+            }
+            return FormValidation.ok();
+        } catch (NumberFormatException e) {
+            return FormValidation.error(Messages.ConnectionRetryStrategy_MaxWaitTimeMustBeANumber());
+        }
+    }
+
+    public abstract static class ConnectionRetryStrategyDescriptor extends Descriptor<ConnectionRetryStrategy> {}
+}
@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2004-, all the contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.sshslaves.retry;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.plugins.sshslaves.Messages;
+import hudson.util.FormValidation;
+import java.util.concurrent.ThreadLocalRandom;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+/**
+ * Picks each wait at random between the configured wait between retries and three times the previous wait, up to
+ * {@link #getMaxWaitTime()} seconds. Agents failing at the same time, for instance when a rack comes back, spread
+ * their next attempts instead of retrying in lockstep.
+ */
+public class DecorrelatedJitterRetryStrategy extends ConnectionRetryStrategy {
+
+    private final int maxWaitTime;
+
+    /**
+     * @param maxWaitTime the longest wait between two attempts, in seconds.
+     */
+    @DataBoundConstructor
+    public DecorrelatedJitterRetryStrategy(Integer maxWaitTime) {
+        this.maxWaitTime = maxWaitTime != null && maxWaitTime >= 0 ? maxWaitTime : DEFAULT_MAX_WAIT_TIME;
+    }
+
+    public int getMaxWaitTime() {
+        return maxWaitTime;
+    }
+
+    @Override
+    public long getDelayMillis(int retry, long baseMillis, long previousMillis) {
+        long base = Math.max(0, baseMillis);
+        long cap = toMillis(maxWaitTime);
+        long upper = Math.min(cap, Math.max(base, previousMillis) * 3);
+        if (upper <= base) {
+            return Math.min(cap, base);
+        }
+        return ThreadLocalRandom.current().nextLong(base, upper + 1);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof DecorrelatedJitterRetryStrategy
+                && ((DecorrelatedJitterRetryStrategy) obj).maxWaitTime == maxWaitTime;
+    }
+
+    @Override
+    public int hashCode() {
+        return maxWaitTime;
+    }
+
+    @Extension
+    @Symbol("decorrelatedJitter")
+    public static class DescriptorImpl extends ConnectionRetryStrategyDescriptor {
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return Messages.DecorrelatedJitterRetryStrategy_DisplayName();
+        }
+
+        @RequirePOST
+        public FormValidation doCheckMaxWaitTime(@QueryParameter String value) {
+            return ConnectionRetryStrategy.checkMaxWaitTime(value);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2004-, all the contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.sshslaves.retry;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.plugins.sshslaves.Messages;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * Waits the configured time between all the attempts, the historical behaviour.
+ */
+public class FixedDelayRetryStrategy extends ConnectionRetryStrategy {
+
+    @DataBoundConstructor
+    public FixedDelayRetryStrategy() {
+        super();
+    }
+
+    @Override
+    public long getDelayMillis(int retry, long baseMillis, long previousMillis) {
+        return Math.max(0, baseMillis);
+    }
+
+    /**
+     * Retries every failure but an interrupted launch, as the launcher always did. In particular a host key rejected
+     * by the Manually trusted key verification strategy is retried, so the launch goes on once an administrator
+     * trusts the key.
+     */
+    @Override
+    public boolean isRetryable(@NonNull Throwable failure) {
+        return !isInterrupted(failure);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof FixedDelayRetryStrategy;
+    }
+
+    @Override
+    public int hashCode() {
+        return FixedDelayRetryStrategy.class.hashCode();
+    }
+
+    @Extension(ordinal = 100)
+    @Symbol("fixedDelay")
+    public static class DescriptorImpl extends ConnectionRetryStrategyDescriptor {
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return Messages.FixedDelayRetryStrategy_DisplayName();
+        }
+    }
+}
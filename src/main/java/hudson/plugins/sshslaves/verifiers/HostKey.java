@@ -24,15 +24,24 @@
 package hudson.plugins.sshslaves.verifiers;
 
 import com.trilead.ssh2.KnownHosts;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
 
 /**
  * A representation of the SSH key provided by a remote host to verify itself
  * and secure the initial setup of the SSH connection.
+ * <p>
+ * Instances are immutable. Their hash code and fingerprint are computed once, and the keys read from the
+ * configuration are interned, so agents configured with the same key share one instance.
  * @author Michael Clarke
  * @since 1.13
  */
@@ -40,9 +49,20 @@ public final class HostKey implements Serializable {
 
     private static final long serialVersionUID = -5131839381842616910L;
 
+    private static final Map<HostKey, WeakReference<HostKey>> INTERNED = new WeakHashMap<>();
+
     private final String algorithm;
     private final byte[] key;
 
+    /**
+     * The hash code, or 0 if not computed yet. Not serialized, so it is computed again after deserialization.
+     */
+    @SuppressFBWarnings(value = "SE_TRANSIENT_FIELD_NOT_RESTORED", justification = "Computed on first use")
+    private transient int hash;
+
+    @SuppressFBWarnings(value = "SE_TRANSIENT_FIELD_NOT_RESTORED", justification = "Computed on first use")
+    private transient String fingerprint;
+
     public HostKey(String algorithm, byte[] key) {
         super();
         this.algorithm = algorithm;
@@ -66,22 +86,52 @@ public final class HostKey implements Serializable {
     }
 
     public String getFingerprint() {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] digest = md.digest(getKey());
-            return "SHA256:" + Base64.getEncoder().encodeToString(digest);
-        } catch (NoSuchAlgorithmException e) {
-            // SHA-256 should always be available, but fallback to MD5 if not
-            return KnownHosts.createHexFingerprint(getAlgorithm(), getKey());
+        String result = fingerprint;
+        if (result == null) {
+            try {
+                MessageDigest md = MessageDigest.getInstance("SHA-256");
+                byte[] digest = md.digest(key);
+                result = "SHA256:" + Base64.getEncoder().encodeToString(digest);
+            } catch (NoSuchAlgorithmException e) {
+                // SHA-256 should always be available, but fallback to MD5 if not
+                result = KnownHosts.createHexFingerprint(getAlgorithm(), key);
+            }
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the instance equal to this key that is shared by all the users of the key.
+     * @return an instance equal to this one, the same for all the equal keys in use.
+     */
+    @Restricted(NoExternalUse.class)
+    public HostKey intern() {
+        synchronized (INTERNED) {
+            WeakReference<HostKey> reference = INTERNED.get(this);
+            HostKey interned = reference == null ? null : reference.get();
+            if (interned == null) {
+                INTERNED.put(this, new WeakReference<>(this));
+                interned = this;
+            }
+            return interned;
         }
     }
 
+    private Object readResolve() {
+        return intern();
+    }
+
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + ((algorithm == null) ? 0 : algorithm.hashCode());
-        result = prime * result + Arrays.hashCode(key);
+        int result = hash;
+        if (result == 0) {
+            final int prime = 31;
+            result = 1;
+            result = prime * result + ((algorithm == null) ? 0 : algorithm.hashCode());
+            result = prime * result + Arrays.hashCode(key);
+            hash = result;
+        }
         return result;
     }
 
@@ -91,6 +141,7 @@ public final class HostKey implements Serializable {
         if (obj == null) return false;
         if (getClass() != obj.getClass()) return false;
         HostKey other = (HostKey) obj;
+        if (hash != 0 && other.hash != 0 && hash != other.hash) return false;
         if (algorithm == null) {
             if (other.algorithm != null) return false;
         } else if (!algorithm.equals(other.algorithm)) return false;
@@ -23,28 +23,85 @@
  */
 package hudson.plugins.sshslaves.verifiers;
 
-import hudson.XmlFile;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
 import hudson.model.Computer;
 import hudson.model.Node;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import jenkins.model.Jenkins;
+import jenkins.model.NodeListener;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
 
 /**
  * Helper methods to allow loading and saving of host keys for a computer. Verifiers
  * don't have a reference to the Node or Computer that they're running for at the point
  * they're created, so can only load the existing key to run comparisons against at the
  * point the verifier is invoked during the connection attempt.
+ * <p>
+ * Keys are cached by node name. Concurrent launches for the same node wait for a single read of its key file, and
+ * nodes without a key file are remembered for {@link #NEGATIVE_CACHE_TTL_MILLIS}. The keys themselves are kept by a
+ * {@link HostKeyStore}, one XML file per node unless {@link #STORE} selects the single file store.
  * @author Michael Clarke
  * @since 1.13
  */
 public final class HostKeyHelper {
 
+    private static final Logger LOGGER = Logger.getLogger(HostKeyHelper.class.getName());
+
+    /**
+     * The store of the trusted keys: {@code xml} for a file per node, {@code log} for {@link LogHostKeyStore}.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    @Restricted(NoExternalUse.class)
+    public static String STORE = SystemProperties.getString(HostKeyHelper.class.getName() + ".store", "xml");
+
+    /**
+     * How long a node without a saved host key is remembered as such, in milliseconds.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    @Restricted(NoExternalUse.class)
+    public static long NEGATIVE_CACHE_TTL_MILLIS =
+            SystemProperties.getLong(HostKeyHelper.class.getName() + ".negativeCacheTtlMillis", 60_000L);
+
+    /**
+     * The maximum number of nodes whose host key is cached.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    @Restricted(NoExternalUse.class)
+    public static int MAX_CACHED_KEYS =
+            SystemProperties.getInteger(HostKeyHelper.class.getName() + ".cacheSize", 10_000);
+
     private static final HostKeyHelper INSTANCE = new HostKeyHelper();
 
-    private final Map<Computer, HostKey> cache = new WeakHashMap<>();
+    private final Map<String, CachedKey> cache = new ConcurrentHashMap<>();
+
+    private final Map<String, CompletableFuture<CachedKey>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * Orders reads and writes of the key files, so a read that started before a save cannot replace the saved key.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong totalLoadNanos = new AtomicLong();
+
+    private HostKeyStore store;
 
     private HostKeyHelper() {
         super();
@@ -62,18 +119,44 @@ public final class HostKeyHelper {
      * @throws IOException if the host key can not be read from storage
      */
     public HostKey getHostKey(Computer host) throws IOException {
-        HostKey key = cache.get(host);
-        if (null == key) {
-            File hostKeyFile = getSshHostKeyFile(host.getNode());
-            if (hostKeyFile.exists()) {
-                XmlFile xmlHostKeyFile = new XmlFile(hostKeyFile);
-                key = (HostKey) xmlHostKeyFile.read();
-            } else {
-                key = null;
-            }
-            cache.put(host, key);
+        return getHostKey(host.getNode());
+    }
+
+    /**
+     * @param node the node to retrieve the key for.
+     * @return the currently trusted key for the node, or null if no key is trusted.
+     * @throws IOException if the host key can not be read from storage
+     */
+    @CheckForNull
+    HostKey getHostKey(@CheckForNull Node node) throws IOException {
+        if (null == node) {
+            throw new IOException("Could not load key for the requested node");
+        }
+        String name = node.getNodeName();
+        CachedKey cached = cache.get(name);
+        if (cached != null && cached.isValid()) {
+            hits.incrementAndGet();
+            return cached.key;
+        }
+
+        CompletableFuture<CachedKey> load = new CompletableFuture<>();
+        CompletableFuture<CachedKey> running = loading.putIfAbsent(name, load);
+        if (running != null) {
+            hits.incrementAndGet();
+            return await(running).key;
+        }
+        try {
+            misses.incrementAndGet();
+            CachedKey loaded = load(node);
+            store(name, loaded);
+            load.complete(loaded);
+            return loaded.key;
+        } catch (IOException | RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(name, load);
         }
-        return key;
     }
 
     /**
@@ -85,28 +168,187 @@ public final class HostKeyHelper {
      * @throws IOException on failure saving the key for the host
      */
     public void saveHostKey(Computer host, HostKey hostKey) throws IOException {
-        XmlFile xmlHostKeyFile = new XmlFile(getSshHostKeyFile(host.getNode()));
-        xmlHostKeyFile.write(hostKey);
-        cache.put(host, hostKey);
+        saveHostKey(host.getNode(), hostKey);
     }
 
-    private File getSshHostKeyFile(Node node) throws IOException {
-        return new File(getNodeDirectory(node), "ssh-host-key.xml");
+    /**
+     * Persists an SSH key as the trusted key of a node.
+     * @param node the node the key is being saved for
+     * @param hostKey the key to be saved as the trusted key for this node
+     * @throws IOException on failure saving the key for the node
+     */
+    void saveHostKey(@CheckForNull Node node, @NonNull HostKey hostKey) throws IOException {
+        if (null == node) {
+            throw new IOException("Could not save key for the requested node");
+        }
+        getStore().save(node.getNodeName(), hostKey);
+        store(node.getNodeName(), new CachedKey(hostKey, sequence.incrementAndGet()));
     }
 
-    private File getNodeDirectory(Node node) throws IOException {
-        if (null == node) {
-            throw new IOException("Could not load key for the requested node");
+    /**
+     * @return the store the keys are read from and written to.
+     */
+    @NonNull
+    @Restricted(NoExternalUse.class)
+    public synchronized HostKeyStore getStore() {
+        if (store == null) {
+            HostKeyStore xml = new XmlHostKeyStore();
+            if ("log".equals(STORE)) {
+                store = new LogHostKeyStore(new File(Jenkins.get().getRootDir(), "ssh-host-keys.log"), xml);
+            } else {
+                store = xml;
+            }
         }
-        return new File(getNodesDirectory(), node.getNodeName());
+        return store;
     }
 
-    private File getNodesDirectory() throws IOException {
-        // jenkins.model.Nodes#getNodesDirectory() is private, so we have to duplicate it here.
-        File nodesDir = new File(Jenkins.get().getRootDir(), "nodes");
-        if (!nodesDir.exists() || !nodesDir.isDirectory()) {
-            throw new IOException("Nodes directory does not exist");
+    /**
+     * Closes the files the store keeps open, a later write opens them again.
+     * @throws IOException if a file cannot be closed.
+     */
+    @Restricted(NoExternalUse.class)
+    public synchronized void closeStore() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    /**
+     * Forgets the cached key of a node, the next lookup reads its key file again.
+     * @param nodeName the name of the node.
+     */
+    @Restricted(NoExternalUse.class)
+    public void invalidate(@NonNull String nodeName) {
+        cache.remove(nodeName);
+    }
+
+    /**
+     * @return the number of lookups answered without reading a key file.
+     */
+    @Restricted(NoExternalUse.class)
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups that read a key file.
+     */
+    @Restricted(NoExternalUse.class)
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the average time taken to read a key file, in microseconds.
+     */
+    @Restricted(NoExternalUse.class)
+    public long getAverageLoadMicros() {
+        long count = misses.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalLoadNanos.get() / count);
+    }
+
+    /**
+     * @return the number of nodes whose key, or lack of key, is cached.
+     */
+    @Restricted(NoExternalUse.class)
+    public int getSize() {
+        return cache.size();
+    }
+
+    private CachedKey load(Node node) throws IOException {
+        long start = System.nanoTime();
+        long version = sequence.incrementAndGet();
+        try {
+            return new CachedKey(getStore().load(node.getNodeName()), version);
+        } finally {
+            totalLoadNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    private void store(String name, CachedKey key) {
+        cache.merge(name, key, (old, update) -> old.version > update.version ? old : update);
+        if (cache.size() > MAX_CACHED_KEYS) {
+            Iterator<String> names = cache.keySet().iterator();
+            while (cache.size() > MAX_CACHED_KEYS && names.hasNext()) {
+                String evicted = names.next();
+                if (!evicted.equals(name)) {
+                    names.remove();
+                }
+            }
+        }
+    }
+
+    private static CachedKey await(CompletableFuture<CachedKey> load) throws IOException {
+        try {
+            return load.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (InterruptedIOException)
+                    new InterruptedIOException("Interrupted while loading the host key").initCause(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * The key of a node, or the lack of one, as read or written at some point in {@link #sequence}.
+     */
+    private static final class CachedKey {
+
+        @CheckForNull
+        private final HostKey key;
+
+        private final long version;
+
+        private final long expiresAt;
+
+        CachedKey(@CheckForNull HostKey key, long version) {
+            this.key = key;
+            this.version = version;
+            this.expiresAt =
+                    key == null ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(NEGATIVE_CACHE_TTL_MILLIS) : 0;
+        }
+
+        boolean isValid() {
+            return key != null || System.nanoTime() - expiresAt < 0;
+        }
+    }
+
+    /**
+     * Drops the cached key of nodes that are renamed or removed, and moves or removes their stored key.
+     */
+    @Extension
+    @Restricted(NoExternalUse.class)
+    public static class NodeCacheInvalidator extends NodeListener {
+
+        @Override
+        protected void onUpdated(@NonNull Node oldOne, @NonNull Node newOne) {
+            HostKeyHelper helper = getInstance();
+            if (!oldOne.getNodeName().equals(newOne.getNodeName())) {
+                try {
+                    helper.getStore().rename(oldOne.getNodeName(), newOne.getNodeName());
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Could not move the SSH host key of " + oldOne.getNodeName(), e);
+                }
+            }
+            helper.invalidate(oldOne.getNodeName());
+            helper.invalidate(newOne.getNodeName());
+        }
+
+        @Override
+        protected void onDeleted(@NonNull Node node) {
+            HostKeyHelper helper = getInstance();
+            try {
+                helper.getStore().remove(node.getNodeName());
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not remove the SSH host key of " + node.getNodeName(), e);
+            }
+            helper.invalidate(node.getNodeName());
+            PendingTrustRegistry.get().removeNode(node.getNodeName());
         }
-        return nodesDir;
     }
 }
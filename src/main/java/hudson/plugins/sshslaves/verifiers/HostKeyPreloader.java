@@ -0,0 +1,137 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2004-, all the contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.sshslaves.verifiers;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.Slave;
+import hudson.plugins.sshslaves.SSHLauncher;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Reads the trusted host keys of all the agents using {@link ManuallyTrustedKeyVerificationStrategy} in the
+ * background when Jenkins starts, so the first launches after a restart find them in {@link HostKeyHelper} instead of
+ * each reading its key file. A launch that needs a key still being read waits for that read.
+ */
+@Restricted(NoExternalUse.class)
+public final class HostKeyPreloader {
+
+    private static final Logger LOGGER = Logger.getLogger(HostKeyPreloader.class.getName());
+
+    /**
+     * Preload the trusted host keys at startup.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    public static boolean PRELOAD = SystemProperties.getBoolean(HostKeyHelper.class.getName() + ".preload", false);
+
+    /**
+     * The number of key files read at the same time by the preload.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    public static int PRELOAD_THREADS =
+            SystemProperties.getInteger(HostKeyHelper.class.getName() + ".preloadThreads", 8);
+
+    private HostKeyPreloader() {}
+
+    @Initializer(after = InitMilestone.JOB_CONFIG_ADAPTED)
+    public static void preloadAtStartup() {
+        if (!PRELOAD) {
+            return;
+        }
+        List<Node> nodes = new ArrayList<>();
+        for (Node node : Jenkins.get().getNodes()) {
+            if (node instanceof Slave && ((Slave) node).getLauncher() instanceof SSHLauncher) {
+                SSHLauncher launcher = (SSHLauncher) ((Slave) node).getLauncher();
+                if (launcher.getSshHostKeyVerificationStrategy() instanceof ManuallyTrustedKeyVerificationStrategy) {
+                    nodes.add(node);
+                }
+            }
+        }
+        if (!nodes.isEmpty()) {
+            Computer.threadPoolForRemoting.submit(() -> preload(HostKeyHelper.getInstance(), nodes, PRELOAD_THREADS));
+        }
+    }
+
+    /**
+     * Reads the trusted host keys of the nodes.
+     *
+     * @param helper  the cache to fill.
+     * @param nodes   the nodes whose key to read.
+     * @param threads the number of key files read at the same time.
+     * @return the number of keys found.
+     */
+    static int preload(@NonNull HostKeyHelper helper, @NonNull List<Node> nodes, int threads) {
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(threads, nodes.size())),
+                new NamingThreadFactory(new DaemonThreadFactory(), "HostKeyPreloader"));
+        int found = 0;
+        try {
+            List<Callable<HostKey>> reads = new ArrayList<>(nodes.size());
+            for (Node node : nodes) {
+                reads.add(() -> helper.getHostKey(node));
+            }
+            List<Future<HostKey>> results = executor.invokeAll(reads);
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    if (results.get(i).get() != null) {
+                        found++;
+                    }
+                } catch (ExecutionException e) {
+                    LOGGER.log(
+                            Level.WARNING,
+                            "Could not preload the SSH host key of " + nodes.get(i).getNodeName(),
+                            e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        LOGGER.log(Level.INFO, "Preloaded {0} SSH host keys of {1} agents in {2} ms", new Object[] {
+            found, nodes.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        });
+        return found;
+    }
+}
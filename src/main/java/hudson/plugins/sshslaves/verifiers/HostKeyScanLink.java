@@ -0,0 +1,325 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2004-, all the contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.sshslaves.verifiers;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.model.Computer;
+import hudson.model.ManagementLink;
+import hudson.model.Node;
+import hudson.model.Slave;
+import hudson.plugins.sshslaves.Messages;
+import hudson.plugins.sshslaves.SSHLauncher;
+import hudson.slaves.SlaveComputer;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+/**
+ * Reads the host keys of all the agents using {@link ManuallyTrustedKeyVerificationStrategy} in parallel and lets an
+ * administrator trust them in one go, so new agents connect on their first attempt instead of failing it and waiting
+ * for a {@link TrustHostKeyAction} each.
+ */
+@Extension
+@Restricted(NoExternalUse.class)
+public class HostKeyScanLink extends ManagementLink {
+
+    private static final Logger LOGGER = Logger.getLogger(HostKeyScanLink.class.getName());
+
+    /**
+     * The number of hosts scanned at the same time.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    public static int SCAN_THREADS = SystemProperties.getInteger(HostKeyHelper.class.getName() + ".scanThreads", 16);
+
+    @CheckForNull
+    private volatile Scan scan;
+
+    @Override
+    public String getIconFileName() {
+        return "symbol-fingerprint";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.HostKeyScanLink_DisplayName();
+    }
+
+    @Override
+    public String getDescription() {
+        return Messages.HostKeyScanLink_Description();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "sshHostKeys";
+    }
+
+    @NonNull
+    @Override
+    public Category getCategory() {
+        return Category.SECURITY;
+    }
+
+    /**
+     * @return the last scan, or null if none was started.
+     */
+    @CheckForNull
+    public Scan getScan() {
+        return scan;
+    }
+
+    @RequirePOST
+    public synchronized HttpResponse doScan() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        Scan current = scan;
+        if (current == null || current.isDone()) {
+            List<Slave> agents = new ArrayList<>();
+            for (Node node : Jenkins.get().getNodes()) {
+                if (node instanceof Slave && getStrategy((Slave) node) != null) {
+                    agents.add((Slave) node);
+                }
+            }
+            Scan started = new Scan(agents.size());
+            scan = started;
+            Computer.threadPoolForRemoting.submit(() -> started.run(agents, SCAN_THREADS));
+        }
+        return HttpResponses.redirectToDot();
+    }
+
+    @RequirePOST
+    public HttpResponse doTrust(StaplerRequest2 req) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        Scan current = scan;
+        String[] names = req.getParameterValues("node");
+        if (current != null && names != null) {
+            for (String name : names) {
+                current.trust(name);
+            }
+        }
+        return HttpResponses.redirectToDot();
+    }
+
+    @CheckForNull
+    private static ManuallyTrustedKeyVerificationStrategy getStrategy(Slave agent) {
+        if (agent.getLauncher() instanceof SSHLauncher) {
+            SshHostKeyVerificationStrategy strategy =
+                    ((SSHLauncher) agent.getLauncher()).getSshHostKeyVerificationStrategy();
+            if (strategy instanceof ManuallyTrustedKeyVerificationStrategy) {
+                return (ManuallyTrustedKeyVerificationStrategy) strategy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A scan of the host keys of the agents, filled in as the hosts answer.
+     */
+    public static final class Scan {
+
+        private final int total;
+
+        private final AtomicInteger completed = new AtomicInteger();
+
+        private final Map<String, Result> results = new ConcurrentSkipListMap<>();
+
+        private volatile boolean done;
+
+        Scan(int total) {
+            this.total = total;
+        }
+
+        void run(List<Slave> agents, int threads) {
+            long start = System.nanoTime();
+            ExecutorService executor = Executors.newFixedThreadPool(
+                    Math.max(1, Math.min(threads, agents.size())),
+                    new NamingThreadFactory(new DaemonThreadFactory(), "HostKeyScanLink"));
+            try {
+                for (Slave agent : agents) {
+                    executor.submit(() -> {
+                        try {
+                            results.put(agent.getNodeName(), scan(agent));
+                        } finally {
+                            completed.incrementAndGet();
+                        }
+                    });
+                }
+                executor.shutdown();
+                executor.awaitTermination(1, TimeUnit.DAYS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                executor.shutdownNow();
+                done = true;
+            }
+            LOGGER.log(Level.INFO, "Scanned the SSH host keys of {0} agents in {1} ms", new Object[] {
+                agents.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+            });
+        }
+
+        private static Result scan(Slave agent) {
+            SSHLauncher launcher = (SSHLauncher) agent.getLauncher();
+            String name = agent.getNodeName();
+            try {
+                HostKey trusted = HostKeyHelper.getInstance().getHostKey(agent);
+                String[] algorithms;
+                Computer computer = agent.toComputer();
+                ManuallyTrustedKeyVerificationStrategy strategy = getStrategy(agent);
+                if (computer instanceof SlaveComputer && strategy != null) {
+                    algorithms = strategy.getPreferredKeyAlgorithms((SlaveComputer) computer);
+                } else {
+                    algorithms = TrileadVersionSupportManager.getTrileadSupport().getSupportedAlgorithms();
+                }
+                int timeoutMillis = (int) TimeUnit.SECONDS.toMillis(Math.max(1, launcher.getLaunchTimeoutSeconds()));
+                HostKey hostKey =
+                        HostKeyScanner.scan(launcher.getHost(), launcher.getPort(), algorithms, timeoutMillis);
+                return new Result(name, launcher.getHost(), launcher.getPort(), hostKey, trusted, null);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.FINE, "Could not scan the SSH host key of " + name, e);
+                return new Result(name, launcher.getHost(), launcher.getPort(), null, null, e.getMessage());
+            }
+        }
+
+        void trust(String name) throws IOException {
+            Result result = results.get(name);
+            Node node = Jenkins.get().getNode(name);
+            if (result == null || result.getHostKey() == null || node == null) {
+                return;
+            }
+            HostKey hostKey = result.getHostKey();
+            HostKeyHelper.getInstance().saveHostKey(node, hostKey);
+            results.put(name, new Result(name, result.getHost(), result.getPort(), hostKey, hostKey, null));
+            PendingTrustRegistry.get().trusted(name, hostKey);
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getCompleted() {
+            return completed.get();
+        }
+
+        public boolean isDone() {
+            return done;
+        }
+
+        /**
+         * @return the hosts scanned so far, by agent name.
+         */
+        @NonNull
+        public Collection<Result> getResults() {
+            return results.values();
+        }
+    }
+
+    /**
+     * The key presented by the host of an agent, and the key trusted for it so far.
+     */
+    public static final class Result {
+
+        private final String nodeName;
+        private final String host;
+        private final int port;
+
+        @CheckForNull
+        private final HostKey hostKey;
+
+        @CheckForNull
+        private final HostKey trustedKey;
+
+        @CheckForNull
+        private final String error;
+
+        Result(
+                String nodeName,
+                String host,
+                int port,
+                @CheckForNull HostKey hostKey,
+                @CheckForNull HostKey trustedKey,
+                @CheckForNull String error) {
+            this.nodeName = nodeName;
+            this.host = host;
+            this.port = port;
+            this.hostKey = hostKey;
+            this.trustedKey = trustedKey;
+            this.error = error;
+        }
+
+        public String getNodeName() {
+            return nodeName;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        @CheckForNull
+        public HostKey getHostKey() {
+            return hostKey;
+        }
+
+        @CheckForNull
+        public HostKey getTrustedKey() {
+            return trustedKey;
+        }
+
+        @CheckForNull
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * @return whether the host presented the key already trusted for it.
+         */
+        public boolean isTrusted() {
+            return hostKey != null && hostKey.equals(trustedKey);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2004-, all the contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.sshslaves.verifiers;
+
+import com.trilead.ssh2.Connection;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reads the host key of an SSH server. Only the key exchange is run, so the server proves it holds the key, and the
+ * connection is closed before any authentication.
+ */
+final class HostKeyScanner {
+
+    private HostKeyScanner() {}
+
+    /**
+     * @param host          the host to connect to.
+     * @param port          the port to connect to.
+     * @param algorithms    the host key algorithms to offer, in order of preference, or null for the default ones.
+     * @param timeoutMillis the connection and key exchange timeout.
+     * @return the key presented by the server.
+     * @throws IOException if the server cannot be reached or the key exchange fails.
+     */
+    @NonNull
+    static HostKey scan(@NonNull String host, int port, @CheckForNull String[] algorithms, int timeoutMillis)
+            throws IOException {
+        Connection connection = new Connection(host, port);
+        try {
+            if (algorithms != null && algorithms.length > 0) {
+                connection.setServerHostKeyAlgorithms(algorithms);
+            }
+            AtomicReference<HostKey> key = new AtomicReference<>();
+            connection.connect(
+                    (hostname, serverPort, serverHostKeyAlgorithm, serverHostKey) -> {
+                        key.set(new HostKey(serverHostKeyAlgorithm, serverHostKey));
+                        return true;
+                    },
+                    timeoutMillis,
+                    timeoutMillis,
+                    timeoutMillis);
+            HostKey hostKey = key.get();
+            if (hostKey == null) {
+                throw new IOException("No host key was presented by " + host + ":" + port);
+            }
+            return hostKey;
+        } finally {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2004-, all the contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.sshslaves.verifiers;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Where the trusted host keys of the nodes are kept. {@link HostKeyHelper} caches the keys in front of the store, the
+ * verification strategies and {@link TrustHostKeyAction} go through it.
+ *
+ * @see XmlHostKeyStore
+ * @see LogHostKeyStore
+ */
+@Restricted(NoExternalUse.class)
+public interface HostKeyStore {
+
+    /**
+     * @param nodeName the name of the node.
+     * @return the trusted key of the node, or null if no key is trusted.
+     * @throws IOException if the key cannot be read.
+     */
+    @CheckForNull
+    HostKey load(@NonNull String nodeName) throws IOException;
+
+    /**
+     * Trusts a key for a node, replacing the key trusted so far.
+     * @param nodeName the name of the node.
+     * @param hostKey  the key to trust.
+     * @throws IOException if the key cannot be written.
+     */
+    void save(@NonNull String nodeName, @NonNull HostKey hostKey) throws IOException;
+
+    /**
+     * Forgets the key of a node that was removed.
+     * @param nodeName the name of the node.
+     * @throws IOException if the key cannot be removed.
+     */
+    void remove(@NonNull String nodeName) throws IOException;
+
+    /**
+     * Moves the key of a node that was renamed.
+     * @param oldName the previous name of the node.
+     * @param newName the new name of the node.
+     * @throws IOException if the key cannot be moved.
+     */
+    default void rename(@NonNull String oldName, @NonNull String newName) throws IOException {
+        HostKey hostKey = load(oldName);
+        if (hostKey != null) {
+            save(newName, hostKey);
+            remove(oldName);
+        }
+    }
+
+    /**
+     * Releases the files the store keeps open, when the plugin is stopped.
+     * @throws IOException if a file cannot be closed.
+     */
+    default void close() throws IOException {}
+}
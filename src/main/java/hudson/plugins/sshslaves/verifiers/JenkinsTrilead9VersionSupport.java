@@ -15,13 +15,23 @@ import org.kohsuke.accmod.restrictions.NoExternalUse;
 @Restricted(NoExternalUse.class)
 class JenkinsTrilead9VersionSupport extends TrileadVersionSupportManager.TrileadVersionSupport {
 
+    /**
+     * The key formats of the algorithms Trilead supports, which do not change while Jenkins runs.
+     */
+    private volatile String[] supportedAlgorithms;
+
     @Override
     public String[] getSupportedAlgorithms() {
-        List<String> algorithms = new ArrayList<>();
-        for (KeyAlgorithm<?, ?> algorithm : KeyAlgorithmManager.getSupportedAlgorithms()) {
-            algorithms.add(algorithm.getKeyFormat());
+        String[] result = supportedAlgorithms;
+        if (result == null) {
+            List<String> algorithms = new ArrayList<>();
+            for (KeyAlgorithm<?, ?> algorithm : KeyAlgorithmManager.getSupportedAlgorithms()) {
+                algorithms.add(algorithm.getKeyFormat());
+            }
+            result = algorithms.toArray(new String[0]);
+            supportedAlgorithms = result;
         }
-        return algorithms.toArray(new String[0]);
+        return result.clone();
     }
 
     @Override
@@ -34,13 +34,19 @@ import hudson.slaves.SlaveComputer;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 /**
- * A verifier that reads host keys from the Jenkins users' SSH known_hosts file.
+ * A verifier that reads host keys from the Jenkins users' SSH known_hosts file, or from the list of known_hosts files
+ * set by an administrator in {@link #KNOWN_HOSTS_PROPERTY}. The key is trusted if any of the files has it for the host.
+ * Each file is parsed and cached on its own, see {@link KnownHostsIndex}.
  *
  * @author Michael Clarke
  * @since 1.13
@@ -53,7 +59,15 @@ public class KnownHostsFileKeyVerificationStrategy extends SshHostKeyVerificatio
             KnownHostsFileKeyVerificationStrategy.class.getName() + ".known_hosts_file";
     private static final String KNOWN_HOSTS_FILE_PATH =
             StringUtils.defaultIfBlank(System.getProperty(KNOWN_HOSTS_PROPERTY), KNOWN_HOSTS_DEFAULT);
-    private static final File KNOWN_HOSTS_FILE = new File(KNOWN_HOSTS_FILE_PATH);
+
+    /**
+     * The files searched, from {@link #KNOWN_HOSTS_PROPERTY} which may hold several paths separated by
+     * {@link File#pathSeparator}. They are not configurable per node, as whoever may configure a node would then
+     * choose which files of the controller are trusted.
+     */
+    private static final List<File> KNOWN_HOSTS_FILES = parse(KNOWN_HOSTS_FILE_PATH, File.pathSeparator);
+
+    private static final File KNOWN_HOSTS_FILE = KNOWN_HOSTS_FILES.get(0);
 
     @DataBoundConstructor
     public KnownHostsFileKeyVerificationStrategy() {
@@ -67,22 +81,27 @@ public class KnownHostsFileKeyVerificationStrategy extends SshHostKeyVerificatio
             return false;
         }
 
-        if (!KNOWN_HOSTS_FILE.exists()) {
+        List<File> files = getKnownHostsFileList();
+        List<KnownHostsIndex.Snapshot> knownHosts = load(files);
+        if (knownHosts.isEmpty()) {
             listener.getLogger()
-                    .println(Messages.KnownHostsFileHostKeyVerifier_NoKnownHostsFile(
-                            KNOWN_HOSTS_FILE.getAbsolutePath()));
+                    .println(Messages.KnownHostsFileHostKeyVerifier_NoKnownHostsFile(files.stream()
+                            .map(File::getAbsolutePath)
+                            .collect(Collectors.joining(File.pathSeparator))));
             return false;
         }
 
         SSHLauncher sshLauncher = (SSHLauncher) launcher;
         String host = sshLauncher.getHost();
         String hostPort = host + ":" + sshLauncher.getPort();
+        // the configured list, not only the files found, so the log does not tell which of them exist
+        String searched = files.stream().map(File::getPath).collect(Collectors.joining(File.pathSeparator));
 
-        listener.getLogger().println(Messages.KnownHostsFileHostKeyVerifier_SearchingFor(host, KNOWN_HOSTS_FILE));
-        int resultHost = verify(host, hostKey.getAlgorithm(), hostKey.getKey());
+        listener.getLogger().println(Messages.KnownHostsFileHostKeyVerifier_SearchingFor(host, searched));
+        int resultHost = KnownHostsIndex.verifyHostkey(knownHosts, host, hostKey.getKey());
 
-        listener.getLogger().println(Messages.KnownHostsFileHostKeyVerifier_SearchingFor(hostPort, KNOWN_HOSTS_FILE));
-        int resultHostPort = verify(hostPort, hostKey.getAlgorithm(), hostKey.getKey());
+        listener.getLogger().println(Messages.KnownHostsFileHostKeyVerifier_SearchingFor(hostPort, searched));
+        int resultHostPort = KnownHostsIndex.verifyHostkey(knownHosts, hostPort, hostKey.getKey());
 
         if (KnownHosts.HOSTKEY_IS_OK == resultHost || KnownHosts.HOSTKEY_IS_OK == resultHostPort) {
             listener.getLogger().println(Messages.KnownHostsFileHostKeyVerifier_KeyTrusted(SSHLauncher.getTimestamp()));
@@ -98,21 +117,60 @@ public class KnownHostsFileKeyVerificationStrategy extends SshHostKeyVerificatio
         }
     }
 
-    private int verify(String host, String algorithm, byte[] key) throws IOException {
-        KnownHosts knownHosts = new KnownHosts(KNOWN_HOSTS_FILE);
-        return knownHosts.verifyHostkey(host, algorithm, key);
-    }
-
     @Override
     public String[] getPreferredKeyAlgorithms(SlaveComputer computer) throws IOException {
         ComputerLauncher launcher = computer.getLauncher();
 
-        if (!(launcher instanceof SSHLauncher) || !KNOWN_HOSTS_FILE.exists()) {
+        if (!(launcher instanceof SSHLauncher)) {
             return super.getPreferredKeyAlgorithms(computer);
         }
 
-        KnownHosts knownHosts = new KnownHosts(KNOWN_HOSTS_FILE);
-        return knownHosts.getPreferredServerHostkeyAlgorithmOrder(((SSHLauncher) launcher).getHost());
+        String[] algorithms = super.getPreferredKeyAlgorithms(computer);
+        List<KnownHostsIndex.Snapshot> knownHosts = load(getKnownHostsFileList());
+        if (knownHosts.isEmpty()) {
+            return algorithms;
+        }
+
+        // look the host up under the same names as verify does, so agents on another port get their stored key type
+        SSHLauncher sshLauncher = (SSHLauncher) launcher;
+        String host = sshLauncher.getHost();
+        Set<String> known =
+                KnownHostsIndex.getKnownAlgorithms(knownHosts, List.of(host, host + ":" + sshLauncher.getPort()));
+        if (known.isEmpty()) {
+            return algorithms;
+        }
+
+        List<String> sortedAlgorithms = new ArrayList<>(known);
+        for (String algorithm : algorithms) {
+            if (!known.contains(algorithm)) {
+                sortedAlgorithms.add(algorithm);
+            }
+        }
+        return sortedAlgorithms.toArray(new String[0]);
+    }
+
+    private static List<KnownHostsIndex.Snapshot> load(List<File> files) throws IOException {
+        List<KnownHostsIndex.Snapshot> snapshots = new ArrayList<>(files.size());
+        for (File file : files) {
+            KnownHostsIndex.Snapshot snapshot = KnownHostsIndex.of(file).get();
+            if (snapshot != null) {
+                snapshots.add(snapshot);
+            }
+        }
+        return snapshots;
+    }
+
+    static List<File> parse(String paths, String separator) {
+        List<File> files = new ArrayList<>();
+        for (String path : paths.split(separator)) {
+            if (!path.isBlank()) {
+                files.add(new File(path.trim()));
+            }
+        }
+        if (files.isEmpty()) {
+            files.add(new File(KNOWN_HOSTS_DEFAULT));
+        }
+        return files;
     }
 
     @Restricted(NoExternalUse.class)
@@ -120,6 +178,15 @@ public class KnownHostsFileKeyVerificationStrategy extends SshHostKeyVerificatio
         return KNOWN_HOSTS_FILE;
     }
 
+    /**
+     * @return the known_hosts files searched by this strategy, in order.
+     */
+    @NonNull
+    @Restricted(NoExternalUse.class)
+    public List<File> getKnownHostsFileList() {
+        return KNOWN_HOSTS_FILES;
+    }
+
     @Extension
     public static class KnownHostsFileKeyVerificationStrategyDescriptor
             extends SshHostKeyVerificationStrategyDescriptor {
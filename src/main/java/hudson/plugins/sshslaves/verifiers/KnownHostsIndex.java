@@ -0,0 +1,517 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2004-, all the contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.sshslaves.verifiers;
+
+import com.trilead.ssh2.KnownHosts;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * A parsed, immutable view of a known_hosts file, shared by all the launches and reloaded when the file changes.
+ * <p>
+ * Plain host names are looked up in a map. Only the entries with hashed names, wildcards or negations are matched one
+ * by one, and the entries matching a host are remembered until the file changes. The results are the ones of
+ * {@link KnownHosts#verifyHostkey(String, String, byte[])}: entries are matched with the same rules, and the IP
+ * addresses of the host are tried when its name is not trusted.
+ */
+final class KnownHostsIndex {
+
+    private static final Map<File, KnownHostsIndex> INDEXES = new ConcurrentHashMap<>();
+
+    /**
+     * The number of hosts whose matching entries are remembered, the memo is cleared when it grows past it.
+     */
+    private static final int MAX_MEMOIZED_HOSTS = 10_000;
+
+    private final File file;
+
+    private final AtomicLong loads = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    private KnownHostsIndex(File file) {
+        this.file = file;
+    }
+
+    /**
+     * @param file a known_hosts file.
+     * @return the index shared by all the users of this file.
+     */
+    @NonNull
+    static KnownHostsIndex of(@NonNull File file) {
+        return INDEXES.computeIfAbsent(file.getAbsoluteFile(), KnownHostsIndex::new);
+    }
+
+    /**
+     * @return the index of the current content of the file, or null if the file does not exist.
+     * @throws IOException if the file cannot be read.
+     */
+    @CheckForNull
+    Snapshot get() throws IOException {
+        FileVersion version = FileVersion.of(file.toPath());
+        if (version == null) {
+            return null;
+        }
+        Snapshot current = snapshot;
+        if (current != null && current.version.equals(version)) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current == null || !current.version.equals(version)) {
+                current = Snapshot.load(file.toPath(), version);
+                snapshot = current;
+                loads.incrementAndGet();
+            }
+            return current;
+        }
+    }
+
+    /**
+     * @return the number of times the file was parsed.
+     */
+    long getLoads() {
+        return loads.get();
+    }
+
+    /**
+     * Checks a host key against several files like {@link KnownHosts#verifyHostkey(String, String, byte[])} does
+     * against one: the key is trusted if any of the files has it for the host.
+     *
+     * @param snapshots the files to search.
+     * @param hostname  the host name, or {@code host:port}.
+     * @param key       the key presented by the host.
+     * @return {@link KnownHosts#HOSTKEY_IS_OK}, {@link KnownHosts#HOSTKEY_IS_NEW} or
+     *         {@link KnownHosts#HOSTKEY_HAS_CHANGED}.
+     */
+    static int verifyHostkey(@NonNull List<Snapshot> snapshots, @NonNull String hostname, @NonNull byte[] key) {
+        int result = checkKey(snapshots, hostname, key);
+        if (result == KnownHosts.HOSTKEY_IS_OK) {
+            return result;
+        }
+        InetAddress[] addresses;
+        try {
+            addresses = InetAddress.getAllByName(hostname);
+        } catch (UnknownHostException e) {
+            return result;
+        }
+        for (InetAddress address : addresses) {
+            int addressResult = checkKey(snapshots, address.getHostAddress(), key);
+            if (addressResult == KnownHosts.HOSTKEY_IS_OK) {
+                return addressResult;
+            }
+            if (addressResult == KnownHosts.HOSTKEY_HAS_CHANGED) {
+                result = KnownHosts.HOSTKEY_HAS_CHANGED;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Lists the algorithms of the keys the files have for a host, so the key exchange asks for a key that can be
+     * verified. The addresses of the host are only searched when none of the names is known, like
+     * {@link #verifyHostkey(List, String, byte[])} does.
+     *
+     * @param snapshots the files to search, in order.
+     * @param hostnames the names of the host, such as the host name and {@code host:port}.
+     * @return the algorithms in the order the keys appear in the files, empty if the host is unknown.
+     */
+    @NonNull
+    static Set<String> getKnownAlgorithms(@NonNull List<Snapshot> snapshots, @NonNull List<String> hostnames) {
+        Set<String> algorithms = new LinkedHashSet<>();
+        for (String hostname : hostnames) {
+            addAlgorithms(snapshots, hostname, algorithms);
+        }
+        if (!algorithms.isEmpty()) {
+            return algorithms;
+        }
+        for (String hostname : hostnames) {
+            try {
+                for (InetAddress address : InetAddress.getAllByName(hostname)) {
+                    addAlgorithms(snapshots, address.getHostAddress(), algorithms);
+                }
+            } catch (UnknownHostException e) {
+                // host:port does not resolve, the plain host name was searched already
+            }
+        }
+        return algorithms;
+    }
+
+    private static void addAlgorithms(List<Snapshot> snapshots, String hostname, Set<String> algorithms) {
+        for (Snapshot snapshot : snapshots) {
+            for (Entry entry : snapshot.lookup(hostname)) {
+                algorithms.add(entry.algorithm);
+            }
+        }
+    }
+
+    private static int checkKey(List<Snapshot> snapshots, String hostname, byte[] key) {
+        boolean known = false;
+        for (Snapshot snapshot : snapshots) {
+            for (Entry entry : snapshot.lookup(hostname)) {
+                if (Arrays.equals(entry.key, key)) {
+                    return KnownHosts.HOSTKEY_IS_OK;
+                }
+                known = true;
+            }
+        }
+        return known ? KnownHosts.HOSTKEY_HAS_CHANGED : KnownHosts.HOSTKEY_IS_NEW;
+    }
+
+    /**
+     * Identifies a version of the file by its modification time, size and file key, so an edit or a replacement by
+     * rename is noticed with a single {@code stat}.
+     */
+    private record FileVersion(long lastModifiedNanos, long size, @CheckForNull Object fileKey) {
+
+        @CheckForNull
+        static FileVersion of(Path path) throws IOException {
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+            return new FileVersion(
+                    attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS),
+                    attributes.size(),
+                    attributes.fileKey());
+        }
+    }
+
+    /**
+     * The index of one version of the file.
+     */
+    static final class Snapshot {
+
+        private final FileVersion version;
+
+        /**
+         * Entries made only of plain host names, by lower case host name.
+         */
+        private final Map<String, List<Entry>> plain;
+
+        /**
+         * Entries made only of hashed host names.
+         */
+        private final List<Entry> hashed;
+
+        /**
+         * Entries with a wildcard or a negation.
+         */
+        private final List<Entry> patterns;
+
+        private final Map<String, List<Entry>> matches = new ConcurrentHashMap<>();
+
+        private Snapshot(
+                FileVersion version,
+                Map<String, List<Entry>> plain,
+                List<Entry> hashed,
+                List<Entry> patterns) {
+            this.version = version;
+            this.plain = plain;
+            this.hashed = hashed;
+            this.patterns = patterns;
+        }
+
+        static Snapshot load(Path path, FileVersion version) throws IOException {
+            String content = Files.readString(path, StandardCharsets.ISO_8859_1);
+            Set<String> supportedAlgorithms = new HashSet<>(
+                    Arrays.asList(TrileadVersionSupportManager.getTrileadSupport().getSupportedAlgorithms()));
+            Map<String, List<Entry>> plain = new HashMap<>();
+            List<Entry> hashed = new ArrayList<>();
+            List<Entry> patterns = new ArrayList<>();
+            for (String line : content.split("\\r?\\n")) {
+                Entry entry = Entry.parse(line, supportedAlgorithms);
+                if (entry == null) {
+                    continue;
+                }
+                if (entry.isPlain()) {
+                    for (String pattern : entry.patterns) {
+                        plain.computeIfAbsent(pattern.toLowerCase(Locale.ENGLISH), k -> new ArrayList<>(1))
+                                .add(entry);
+                    }
+                } else if (entry.isHashed()) {
+                    hashed.add(entry);
+                } else {
+                    patterns.add(entry);
+                }
+            }
+            return new Snapshot(version, plain, hashed, patterns);
+        }
+
+        /**
+         * Checks a host key like {@link KnownHosts#verifyHostkey(String, String, byte[])}.
+         *
+         * @param hostname the host name, or {@code host:port}.
+         * @param key      the key presented by the host.
+         * @return {@link KnownHosts#HOSTKEY_IS_OK}, {@link KnownHosts#HOSTKEY_IS_NEW} or
+         *         {@link KnownHosts#HOSTKEY_HAS_CHANGED}.
+         */
+        int verifyHostkey(@NonNull String hostname, @NonNull byte[] key) {
+            return KnownHostsIndex.verifyHostkey(List.of(this), hostname, key);
+        }
+
+        /**
+         * @return the entries matching the host name.
+         */
+        @NonNull
+        List<Entry> lookup(@NonNull String hostname) {
+            String name = hostname.toLowerCase(Locale.ENGLISH);
+            List<Entry> entries = matches.get(name);
+            if (entries != null) {
+                return entries;
+            }
+            entries = new ArrayList<>(plain.getOrDefault(name, Collections.emptyList()));
+            if (!hashed.isEmpty() || !patterns.isEmpty()) {
+                Hasher hasher = new Hasher(name);
+                for (Entry entry : hashed) {
+                    if (entry.matches(name, hasher)) {
+                        entries.add(entry);
+                    }
+                }
+                for (Entry entry : patterns) {
+                    if (entry.matches(name, hasher)) {
+                        entries.add(entry);
+                    }
+                }
+            }
+            entries = Collections.unmodifiableList(entries);
+            if (matches.size() >= MAX_MEMOIZED_HOSTS) {
+                matches.clear();
+            }
+            matches.put(name, entries);
+            return entries;
+        }
+    }
+
+    /**
+     * A line of the file.
+     */
+    static final class Entry {
+
+        private final String[] patterns;
+        private final String algorithm;
+        private final byte[] key;
+
+        /**
+         * The salt and hash of each hashed pattern, decoded once, null for the other patterns.
+         */
+        private final byte[][] salts;
+
+        private final byte[][] hashes;
+
+        private Entry(String[] patterns, String algorithm, byte[] key) {
+            this.patterns = patterns;
+            this.algorithm = algorithm;
+            this.key = key;
+            this.salts = new byte[patterns.length][];
+            this.hashes = new byte[patterns.length][];
+            for (int i = 0; i < patterns.length; i++) {
+                decodeHashed(i);
+            }
+        }
+
+        /**
+         * Decodes a {@code |1|salt|hash} pattern the way Trilead does, a malformed one never matches.
+         */
+        private void decodeHashed(int i) {
+            String pattern = patterns[i].startsWith("!") ? patterns[i].substring(1) : patterns[i];
+            if (!pattern.startsWith("|1|")) {
+                return;
+            }
+            int separator = pattern.indexOf('|', 3);
+            if (separator < 0) {
+                return;
+            }
+            try {
+                byte[] salt = Base64.getDecoder().decode(pattern.substring(3, separator));
+                byte[] hash = Base64.getDecoder().decode(pattern.substring(separator + 1));
+                if (salt.length == 20 && hash.length == 20) {
+                    salts[i] = salt;
+                    hashes[i] = hash;
+                }
+            } catch (IllegalArgumentException e) {
+                // never matches
+            }
+        }
+
+        /**
+         * @return the entry, or null for comments, markers, unsupported key types and malformed lines.
+         */
+        @CheckForNull
+        static Entry parse(String line, Set<String> supportedAlgorithms) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                return null;
+            }
+            String[] fields = trimmed.split("\\s+");
+            if (fields.length < 3 || !supportedAlgorithms.contains(fields[1])) {
+                return null;
+            }
+            try {
+                return new Entry(fields[0].split(","), fields[1], Base64.getDecoder().decode(fields[2]));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        boolean isPlain() {
+            for (String pattern : patterns) {
+                if (pattern.isEmpty()
+                        || pattern.charAt(0) == '!'
+                        || pattern.charAt(0) == '|'
+                        || pattern.indexOf('*') >= 0
+                        || pattern.indexOf('?') >= 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean isHashed() {
+            for (String pattern : patterns) {
+                if (!pattern.startsWith("|")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Same rules as Trilead: a negated pattern matching the host excludes the entry, hashed entries and
+         * wildcards are allowed anywhere.
+         *
+         * @param hostname the lower case host name.
+         * @param hasher   hashes the host name for the hashed patterns.
+         */
+        boolean matches(String hostname, Hasher hasher) {
+            boolean isMatch = false;
+            for (int i = 0; i < patterns.length; i++) {
+                String hostPattern = patterns[i];
+                if (hostPattern.isEmpty()) {
+                    continue;
+                }
+                boolean negate = hostPattern.charAt(0) == '!';
+                String pattern = negate ? hostPattern.substring(1) : hostPattern;
+                if (isMatch && !negate) {
+                    continue;
+                }
+                boolean match;
+                if (pattern.startsWith("|")) {
+                    match = salts[i] != null && hasher.matches(salts[i], hashes[i]);
+                } else {
+                    match = glob(pattern.toLowerCase(Locale.ENGLISH), hostname);
+                }
+                if (match) {
+                    if (negate) {
+                        return false;
+                    }
+                    isMatch = true;
+                }
+            }
+            return isMatch;
+        }
+
+        /**
+         * Matches a pattern where {@code *} stands for any sequence of characters and {@code ?} for any character.
+         */
+        static boolean glob(String pattern, String name) {
+            int p = 0;
+            int n = 0;
+            int star = -1;
+            int starMatch = 0;
+            while (n < name.length()) {
+                if (p < pattern.length() && (pattern.charAt(p) == '?' || pattern.charAt(p) == name.charAt(n))) {
+                    p++;
+                    n++;
+                } else if (p < pattern.length() && pattern.charAt(p) == '*') {
+                    star = p++;
+                    starMatch = n;
+                } else if (star >= 0) {
+                    p = star + 1;
+                    n = ++starMatch;
+                } else {
+                    return false;
+                }
+            }
+            while (p < pattern.length() && pattern.charAt(p) == '*') {
+                p++;
+            }
+            return p == pattern.length();
+        }
+    }
+
+    /**
+     * Computes the HMAC-SHA1 of one host name with the salts of the hashed entries.
+     */
+    private static final class Hasher {
+
+        private final byte[] hostname;
+
+        private Mac mac;
+
+        Hasher(String hostname) {
+            this.hostname = hostname.getBytes(StandardCharsets.ISO_8859_1);
+        }
+
+        boolean matches(byte[] salt, byte[] hash) {
+            try {
+                if (mac == null) {
+                    mac = Mac.getInstance("HmacSHA1");
+                }
+                mac.init(new SecretKeySpec(salt, "HmacSHA1"));
+                return Arrays.equals(mac.doFinal(hostname), hash);
+            } catch (GeneralSecurityException e) {
+                return false;
+            }
+        }
+    }
+}
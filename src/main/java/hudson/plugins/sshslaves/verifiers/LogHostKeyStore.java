@@ -0,0 +1,302 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2004-, all the contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.sshslaves.verifiers;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Keeps the trusted keys of all the nodes in a single append-only file, so trusting a key appends a few bytes to one
+ * file instead of writing a file per node.
+ * <p>
+ * Each record holds a node name and either the algorithm and bytes of its key, or nothing when the key was removed.
+ * The file is read once, the last record of each node wins. It is rewritten with only the live keys once it holds
+ * more replaced or removed records than live ones. A record cut short by a crash, or that cannot be read, is dropped
+ * with everything after it.
+ * <p>
+ * A node without a record falls back to the previous store, and its key is copied to this one, so the existing
+ * {@code ssh-host-key.xml} files are migrated the first time each node connects. The migration is one-way: saving a
+ * key deletes the file of the node in the previous store rather than updating it, so going back to that store asks
+ * for the keys trusted since to be trusted again instead of trusting the keys they replaced.
+ */
+@Restricted(NoExternalUse.class)
+public class LogHostKeyStore implements HostKeyStore {
+
+    private static final Logger LOGGER = Logger.getLogger(LogHostKeyStore.class.getName());
+
+    private static final int MAGIC = 0x53534b31; // SSK1
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    /**
+     * The file is not compacted while it holds fewer dead records than this.
+     */
+    static final int MIN_DEAD_RECORDS_TO_COMPACT = 1000;
+
+    private final Path file;
+
+    @CheckForNull
+    private final HostKeyStore fallback;
+
+    private Map<String, HostKey> keys;
+
+    private int deadRecords;
+
+    @CheckForNull
+    private DataOutputStream out;
+
+    @CheckForNull
+    private FileOutputStream fileOut;
+
+    /**
+     * @param file     the log file.
+     * @param fallback the store the keys are migrated from, or null.
+     */
+    public LogHostKeyStore(@NonNull File file, @CheckForNull HostKeyStore fallback) {
+        this.file = file.toPath();
+        this.fallback = fallback;
+    }
+
+    @CheckForNull
+    @Override
+    public HostKey load(@NonNull String nodeName) throws IOException {
+        synchronized (this) {
+            Map<String, HostKey> keys = getKeys();
+            if (keys.containsKey(nodeName)) {
+                return keys.get(nodeName);
+            }
+        }
+        if (fallback == null) {
+            return null;
+        }
+        HostKey hostKey = fallback.load(nodeName);
+        synchronized (this) {
+            if (getKeys().containsKey(nodeName)) {
+                return getKeys().get(nodeName);
+            }
+            if (hostKey != null) {
+                append(nodeName, hostKey);
+                LOGGER.log(Level.FINE, "Migrated the SSH host key of {0} to {1}", new Object[] {nodeName, file});
+            }
+            return hostKey;
+        }
+    }
+
+    @Override
+    public synchronized void save(@NonNull String nodeName, @NonNull HostKey hostKey) throws IOException {
+        append(nodeName, hostKey);
+        if (fallback != null) {
+            fallback.remove(nodeName);
+        }
+    }
+
+    @Override
+    public synchronized void remove(@NonNull String nodeName) throws IOException {
+        if (getKeys().containsKey(nodeName)) {
+            append(nodeName, null);
+        }
+        if (fallback != null) {
+            fallback.remove(nodeName);
+        }
+    }
+
+    /**
+     * Rewrites the file with only the live keys.
+     * @throws IOException if the file cannot be written.
+     */
+    public synchronized void compact() throws IOException {
+        Map<String, HostKey> keys = getKeys();
+        closeOutput();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream tmpOut = new FileOutputStream(tmp.toFile());
+                DataOutputStream data = new DataOutputStream(new BufferedOutputStream(tmpOut))) {
+            data.writeInt(MAGIC);
+            for (Map.Entry<String, HostKey> entry : keys.entrySet()) {
+                writeRecord(data, entry.getKey(), entry.getValue());
+            }
+            data.flush();
+            tmpOut.getFD().sync();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        deadRecords = 0;
+    }
+
+    /**
+     * Closes the file, the next write opens it again.
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closeOutput();
+    }
+
+    /**
+     * @return the number of records of replaced or removed keys in the file.
+     */
+    synchronized int getDeadRecords() throws IOException {
+        getKeys();
+        return deadRecords;
+    }
+
+    private void append(String nodeName, @CheckForNull HostKey hostKey) throws IOException {
+        Map<String, HostKey> keys = getKeys();
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        writeRecord(new DataOutputStream(record), nodeName, hostKey);
+        DataOutputStream output = getOutput();
+        record.writeTo(output);
+        output.flush();
+        fileOut.getFD().sync();
+        boolean replaced = hostKey == null ? keys.remove(nodeName) != null : keys.put(nodeName, hostKey) != null;
+        if (replaced) {
+            deadRecords++;
+        }
+        if (hostKey == null) {
+            deadRecords++;
+        }
+        if (deadRecords >= MIN_DEAD_RECORDS_TO_COMPACT && deadRecords > keys.size()) {
+            compact();
+        }
+    }
+
+    private static void writeRecord(DataOutputStream data, String nodeName, @CheckForNull HostKey hostKey)
+            throws IOException {
+        data.writeByte(hostKey == null ? REMOVE : PUT);
+        data.writeUTF(nodeName);
+        if (hostKey != null) {
+            byte[] key = hostKey.getKey();
+            data.writeUTF(hostKey.getAlgorithm());
+            data.writeInt(key.length);
+            data.write(key);
+        }
+        data.flush();
+    }
+
+    private DataOutputStream getOutput() throws IOException {
+        if (out == null) {
+            boolean created = !Files.exists(file);
+            fileOut = new FileOutputStream(file.toFile(), true);
+            out = new DataOutputStream(new BufferedOutputStream(fileOut));
+            if (created) {
+                out.writeInt(MAGIC);
+            }
+        }
+        return out;
+    }
+
+    private void closeOutput() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+            fileOut = null;
+        }
+    }
+
+    private Map<String, HostKey> getKeys() throws IOException {
+        if (keys == null) {
+            keys = read();
+        }
+        return keys;
+    }
+
+    private Map<String, HostKey> read() throws IOException {
+        Map<String, HostKey> keys = new HashMap<>();
+        if (!Files.exists(file)) {
+            return keys;
+        }
+        byte[] content = Files.readAllBytes(file);
+        if (content.length < 4) {
+            // cut short while being created
+            Files.delete(file);
+            return keys;
+        }
+        ByteArrayInputStream in = new ByteArrayInputStream(content);
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException(file + " is not a host key store");
+        }
+        int valid = content.length - in.available();
+        int records = 0;
+        String invalid = null;
+        try {
+            while (in.available() > 0) {
+                byte type = data.readByte();
+                String nodeName = data.readUTF();
+                if (type == PUT) {
+                    String algorithm = data.readUTF();
+                    int length = data.readInt();
+                    if (length < 0 || length > in.available()) {
+                        invalid = "a record with a key length of " + length;
+                        break;
+                    }
+                    byte[] key = new byte[length];
+                    data.readFully(key);
+                    keys.put(nodeName, new HostKey(algorithm, key));
+                } else if (type == REMOVE) {
+                    keys.remove(nodeName);
+                } else {
+                    invalid = "a record of unknown type " + type;
+                    break;
+                }
+                valid = content.length - in.available();
+                records++;
+            }
+        } catch (EOFException e) {
+            invalid = "a truncated record";
+        } catch (UTFDataFormatException e) {
+            invalid = "a record with an unreadable name";
+        }
+        if (invalid != null) {
+            LOGGER.log(Level.WARNING, "Dropping the last {1} bytes of {2}, starting with {0}", new Object[] {
+                invalid, content.length - valid, file
+            });
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+        }
+        deadRecords = records - keys.size();
+        return keys;
+    }
+}
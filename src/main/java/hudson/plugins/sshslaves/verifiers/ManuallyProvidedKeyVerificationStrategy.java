@@ -58,7 +58,7 @@ public class ManuallyProvidedKeyVerificationStrategy extends SshHostKeyVerificat
     public ManuallyProvidedKeyVerificationStrategy(String key) {
         super();
         try {
-            this.key = parseKey(key);
+            this.key = parseKey(key).intern();
         } catch (KeyParseException e) {
             throw new IllegalArgumentException("Invalid key: " + e.getMessage(), e);
         }
@@ -72,9 +72,7 @@ public class ManuallyTrustedKeyVerificationStrategy extends SshHostKeyVerificati
             if (isRequireInitialManualTrust()) {
                 listener.getLogger()
                         .println(Messages.ManualTrustingHostKeyVerifier_KeyNotTrusted(SSHLauncher.getTimestamp()));
-                if (!hasExistingTrustAction(computer, hostKey)) {
-                    computer.addAction(new TrustHostKeyAction(computer, hostKey));
-                }
+                PendingTrustRegistry.get().request(computer, hostKey);
                 return false;
             } else {
                 listener.getLogger()
@@ -86,9 +84,7 @@ public class ManuallyTrustedKeyVerificationStrategy extends SshHostKeyVerificati
         } else if (!existingHostKey.equals(hostKey)) {
             listener.getLogger()
                     .println(Messages.ManualTrustingHostKeyVerifier_KeyNotTrusted(SSHLauncher.getTimestamp()));
-            if (!hasExistingTrustAction(computer, hostKey)) {
-                computer.addAction(new TrustHostKeyAction(computer, hostKey));
-            }
+            PendingTrustRegistry.get().request(computer, hostKey);
             return false;
         } else {
             listener.getLogger().println(Messages.ManualTrustingHostKeyVerifier_KeyTrusted(SSHLauncher.getTimestamp()));
@@ -114,16 +110,6 @@ public class ManuallyTrustedKeyVerificationStrategy extends SshHostKeyVerificati
         return algorithms;
     }
 
-    private boolean hasExistingTrustAction(SlaveComputer computer, HostKey hostKey) {
-        for (TrustHostKeyAction action : computer.getActions(TrustHostKeyAction.class)) {
-            if (!action.isComplete() && action.getHostKey().equals(hostKey)) {
-                return true;
-            }
-        }
-
-        return false;
-    }
-
     @Extension
     public static class ManuallyTrustedKeyVerificationStrategyDescriptor
             extends SshHostKeyVerificationStrategyDescriptor {
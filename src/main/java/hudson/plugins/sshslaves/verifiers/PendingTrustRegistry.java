@@ -0,0 +1,173 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2004-, all the contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.sshslaves.verifiers;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.model.Computer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * The {@link TrustHostKeyAction}s waiting for a user, at most one per node and host key. Concurrent launches of the
+ * same untrusted host share one action, and actions are dropped once answered or after
+ * {@link #PENDING_TRUST_TTL_MINUTES}.
+ */
+final class PendingTrustRegistry {
+
+    /**
+     * How long an unanswered {@link TrustHostKeyAction} is kept, in minutes. A launch presenting the key again after
+     * that adds a new one.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    @Restricted(NoExternalUse.class)
+    public static long PENDING_TRUST_TTL_MINUTES =
+            SystemProperties.getLong(HostKeyHelper.class.getName() + ".pendingTrustTtlMinutes", 1440L);
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final PendingTrustRegistry INSTANCE = new PendingTrustRegistry();
+
+    private final Map<Pending, TrustHostKeyAction> actions = new ConcurrentHashMap<>();
+
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    private PendingTrustRegistry() {}
+
+    static PendingTrustRegistry get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the action asking to trust the key for the computer, adding it to the computer if there is none yet.
+     * @param computer the computer presenting the key.
+     * @param hostKey  the key to trust.
+     * @return the pending action.
+     */
+    @NonNull
+    TrustHostKeyAction request(@NonNull Computer computer, @NonNull HostKey hostKey) {
+        sweepIfDue();
+        return actions.compute(new Pending(computer.getName(), hostKey), (pending, action) -> {
+            if (action != null && !action.isComplete() && !isExpired(action) && action.getComputer() == computer) {
+                return action;
+            }
+            if (action != null) {
+                action.getComputer().removeAction(action);
+            }
+            TrustHostKeyAction created = new TrustHostKeyAction(computer, hostKey);
+            computer.addAction(created);
+            return created;
+        });
+    }
+
+    /**
+     * Drops an action that was answered.
+     * @param action the action.
+     */
+    void complete(@NonNull TrustHostKeyAction action) {
+        actions.remove(new Pending(action.getComputer().getName(), action.getHostKey()), action);
+        action.getComputer().removeAction(action);
+    }
+
+    /**
+     * Drops the pending action for a key that was trusted by other means.
+     * @param nodeName the name of the node.
+     * @param hostKey  the key that was trusted.
+     */
+    void trusted(@NonNull String nodeName, @NonNull HostKey hostKey) {
+        TrustHostKeyAction action = actions.remove(new Pending(nodeName, hostKey));
+        if (action != null) {
+            action.getComputer().removeAction(action);
+        }
+    }
+
+    /**
+     * Drops the pending actions of a node that was removed.
+     * @param nodeName the name of the node.
+     */
+    void removeNode(@NonNull String nodeName) {
+        actions.keySet().removeIf(pending -> pending.nodeName.equals(nodeName));
+    }
+
+    /**
+     * @return the number of pending actions.
+     */
+    int size() {
+        return actions.size();
+    }
+
+    private void sweepIfDue() {
+        long last = lastSweep.get();
+        long now = System.nanoTime();
+        if (now - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        Iterator<TrustHostKeyAction> iterator = actions.values().iterator();
+        while (iterator.hasNext()) {
+            TrustHostKeyAction action = iterator.next();
+            if (action.isComplete() || isExpired(action)) {
+                iterator.remove();
+                action.getComputer().removeAction(action);
+            }
+        }
+    }
+
+    private static boolean isExpired(TrustHostKeyAction action) {
+        return System.nanoTime() - action.getCreatedNanos() > TimeUnit.MINUTES.toNanos(PENDING_TRUST_TTL_MINUTES);
+    }
+
+    private static final class Pending {
+
+        private final String nodeName;
+        private final HostKey hostKey;
+
+        Pending(String nodeName, HostKey hostKey) {
+            this.nodeName = nodeName;
+            this.hostKey = hostKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Pending)) {
+                return false;
+            }
+            Pending other = (Pending) o;
+            return nodeName.equals(other.nodeName) && hostKey.equals(other.hostKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * nodeName.hashCode() + hostKey.hashCode();
+        }
+    }
+}
@@ -20,12 +20,20 @@ final class TrileadVersionSupportManager {
     private static final Logger LOGGER = Logger.getLogger(TrileadVersionSupportManager.class.getName());
 
     /**
-     * Craetes an instance of TrileadVersionSupport that can provide functionality relevant to the version of Trilead
-     * available in the current executing instance of Jenkins.
+     * Returns the instance of TrileadVersionSupport that can provide functionality relevant to the version of Trilead
+     * available in the current executing instance of Jenkins. It is created on first use.
      * @return an instance of TrileadVersionSupport that provides functionality relevant for the version of Trilead
      * currently on the classpath
      */
     static TrileadVersionSupport getTrileadSupport() {
+        return Holder.INSTANCE;
+    }
+
+    private static final class Holder {
+        private static final TrileadVersionSupport INSTANCE = createTrileadSupport();
+    }
+
+    private static TrileadVersionSupport createTrileadSupport() {
         try {
             if (isAfterTrilead8()) {
                 return createVersion9Instance();
@@ -23,7 +23,6 @@
  */
 package hudson.plugins.sshslaves.verifiers;
 
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.model.Computer;
 import hudson.model.TaskAction;
 import hudson.plugins.sshslaves.Messages;
@@ -31,6 +30,7 @@ import hudson.security.ACL;
 import hudson.security.Permission;
 import jakarta.servlet.ServletException;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.kohsuke.stapler.StaplerRequest2;
 import org.kohsuke.stapler.StaplerResponse2;
 import org.kohsuke.stapler.interceptor.RequirePOST;
@@ -45,21 +45,19 @@ import org.kohsuke.stapler.interceptor.RequirePOST;
  */
 public class TrustHostKeyAction extends TaskAction {
 
-    private static int keyNumber = 0;
+    private static final AtomicInteger keyNumber = new AtomicInteger();
     private final HostKey hostKey;
     private final Computer computer;
     private final String actionPath;
+    private final long createdNanos = System.nanoTime();
 
-    private boolean complete;
+    private volatile boolean complete;
 
-    @SuppressFBWarnings(
-            value = "ST_WRITE_TO_STATIC_FROM_INSTANCE_METHOD",
-            justification = "Need a static counter of all instances that have been created")
     TrustHostKeyAction(Computer computer, HostKey hostKey) {
         super();
         this.hostKey = hostKey;
         this.computer = computer;
-        this.actionPath = "saveHostKey-" + keyNumber++;
+        this.actionPath = "saveHostKey-" + keyNumber.getAndIncrement();
     }
 
     public HostKey getHostKey() {
@@ -85,6 +83,7 @@ public class TrustHostKeyAction extends TaskAction {
         }
 
         complete = true;
+        PendingTrustRegistry.get().complete(this);
         response.sendRedirect("../");
     }
 
@@ -96,6 +95,10 @@ public class TrustHostKeyAction extends TaskAction {
         return complete;
     }
 
+    long getCreatedNanos() {
+        return createdNanos;
+    }
+
     @Override
     public String getIconFileName() {
         if (complete || !getACL().hasPermission(getPermission())) {
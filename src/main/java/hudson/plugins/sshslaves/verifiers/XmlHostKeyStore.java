@@ -0,0 +1,77 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2004-, all the contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.sshslaves.verifiers;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.XmlFile;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import jenkins.model.Jenkins;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Keeps the trusted key of each node in {@code nodes/<name>/ssh-host-key.xml}.
+ */
+@Restricted(NoExternalUse.class)
+public class XmlHostKeyStore implements HostKeyStore {
+
+    @CheckForNull
+    @Override
+    public HostKey load(@NonNull String nodeName) throws IOException {
+        File hostKeyFile = getSshHostKeyFile(nodeName);
+        if (hostKeyFile.exists()) {
+            XmlFile xmlHostKeyFile = new XmlFile(hostKeyFile);
+            return (HostKey) xmlHostKeyFile.read();
+        }
+        return null;
+    }
+
+    @Override
+    public void save(@NonNull String nodeName, @NonNull HostKey hostKey) throws IOException {
+        XmlFile xmlHostKeyFile = new XmlFile(getSshHostKeyFile(nodeName));
+        xmlHostKeyFile.write(hostKey);
+    }
+
+    @Override
+    public void remove(@NonNull String nodeName) throws IOException {
+        File nodesDir = new File(Jenkins.get().getRootDir(), "nodes");
+        Files.deleteIfExists(new File(new File(nodesDir, nodeName), "ssh-host-key.xml").toPath());
+    }
+
+    private File getSshHostKeyFile(String nodeName) throws IOException {
+        return new File(new File(getNodesDirectory(), nodeName), "ssh-host-key.xml");
+    }
+
+    private File getNodesDirectory() throws IOException {
+        // jenkins.model.Nodes#getNodesDirectory() is private, so we have to duplicate it here.
+        File nodesDir = new File(Jenkins.get().getRootDir(), "nodes");
+        if (!nodesDir.exists() || !nodesDir.isDirectory()) {
+            throw new IOException("Nodes directory does not exist");
+        }
+        return nodesDir;
+    }
+}
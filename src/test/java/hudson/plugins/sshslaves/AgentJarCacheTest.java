@@ -0,0 +1,33 @@
+package hudson.plugins.sshslaves;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import hudson.model.Slave;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class AgentJarCacheTest {
+
+    @Test
+    void agentJarIsReadOnce(JenkinsRule j) throws Exception {
+        AgentJarCache.invalidate();
+        long misses = AgentJarCache.getMisses();
+        long hits = AgentJarCache.getHits();
+
+        AgentJarCache.AgentJar first = AgentJarCache.get();
+        AgentJarCache.AgentJar second = AgentJarCache.get();
+
+        assertSame(first, second);
+        assertEquals(misses + 1, AgentJarCache.getMisses());
+        assertEquals(hits + 1, AgentJarCache.getHits());
+
+        byte[] expected = new Slave.JnlpJar(SSHLauncher.AGENT_JAR).readFully();
+        assertArrayEquals(expected, first.getBytes());
+        assertEquals(expected.length, first.getSize());
+        assertEquals(SSHLauncher.getSha256Hash(expected), first.getSha256());
+    }
+}
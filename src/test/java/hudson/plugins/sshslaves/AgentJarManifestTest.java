@@ -0,0 +1,78 @@
+package hudson.plugins.sshslaves;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.trilead.ssh2.SFTPv3FileAttributes;
+import org.junit.jupiter.api.Test;
+
+class AgentJarManifestTest {
+
+    private static final String SHA256 = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    @Test
+    void roundTrip() {
+        AgentJarManifest manifest = AgentJarManifest.of(SHA256, attributes(1500L, 1000));
+        assertNotNull(manifest);
+        assertEquals(SHA256 + " 1500 1000\n", manifest.format());
+
+        AgentJarManifest parsed = AgentJarManifest.parse(manifest.format());
+        assertNotNull(parsed);
+        assertEquals(SHA256, parsed.getSha256());
+        assertEquals(manifest.format(), parsed.format());
+        assertTrue(parsed.matches(attributes(1500L, 1000), attributes(100L, 1001)));
+    }
+
+    @Test
+    void missingAttributes() {
+        assertNull(AgentJarManifest.of(SHA256, null));
+        assertNull(AgentJarManifest.of(SHA256, attributes(null, 1000)));
+        assertNull(AgentJarManifest.of(SHA256, attributes(1500L, null)));
+
+        AgentJarManifest manifest = new AgentJarManifest(SHA256, 1500, 1000);
+        assertFalse(manifest.matches(null, attributes(100L, 1001)));
+        assertFalse(manifest.matches(attributes(null, 1000), attributes(100L, 1001)));
+        assertFalse(manifest.matches(attributes(1500L, null), attributes(100L, 1001)));
+        assertFalse(manifest.matches(attributes(1500L, 1000), null));
+        assertFalse(manifest.matches(attributes(1500L, 1000), attributes(100L, null)));
+    }
+
+    @Test
+    void mismatchedSizeOrModificationTime() {
+        AgentJarManifest manifest = new AgentJarManifest(SHA256, 1500, 1000);
+        assertFalse(manifest.matches(attributes(1501L, 1000), attributes(100L, 1001)));
+        assertFalse(manifest.matches(attributes(1500L, 999), attributes(100L, 1001)));
+        assertFalse(manifest.matches(attributes(1500L, 1001), attributes(100L, 1002)));
+    }
+
+    @Test
+    void manifestWrittenWithinTheSameSecondIsNotTrusted() {
+        AgentJarManifest manifest = new AgentJarManifest(SHA256, 1500, 1000);
+        assertFalse(manifest.matches(attributes(1500L, 1000), attributes(100L, 1000)));
+        assertFalse(manifest.matches(attributes(1500L, 1000), attributes(100L, 999)));
+        assertTrue(manifest.matches(attributes(1500L, 1000), attributes(100L, 1001)));
+    }
+
+    @Test
+    void corruptManifest() {
+        assertNull(AgentJarManifest.parse(null));
+        assertNull(AgentJarManifest.parse(""));
+        assertNull(AgentJarManifest.parse(SHA256));
+        assertNull(AgentJarManifest.parse(SHA256 + " 1500"));
+        assertNull(AgentJarManifest.parse(SHA256 + " 1500 1000 extra"));
+        assertNull(AgentJarManifest.parse(SHA256 + " 1500 later"));
+        assertNull(AgentJarManifest.parse(SHA256.substring(1) + " 1500 1000"));
+        assertNull(AgentJarManifest.parse(SHA256.replace('a', 'z') + " 1500 1000"));
+        assertNull(AgentJarManifest.parse("\u0000\u0001garbage"));
+    }
+
+    private static SFTPv3FileAttributes attributes(Long size, Integer mtime) {
+        SFTPv3FileAttributes attributes = new SFTPv3FileAttributes();
+        attributes.size = size;
+        attributes.mtime = mtime;
+        return attributes;
+    }
+}
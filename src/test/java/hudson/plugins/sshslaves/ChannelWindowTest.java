@@ -0,0 +1,20 @@
+package hudson.plugins.sshslaves;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ChannelWindowTest {
+
+    @Test
+    void bandwidthDelayProduct() {
+        // 1 Gbit/s for 40 ms is 5,000,000 bytes
+        assertEquals(4883 * 1024, ChannelWindow.forRoundTrip(TimeUnit.MILLISECONDS.toNanos(40), 1000));
+        // 10 Gbit/s for 200 ms is over the maximum
+        assertEquals(
+                ChannelWindow.MAX_SIZE, ChannelWindow.forRoundTrip(TimeUnit.MILLISECONDS.toNanos(200), 10_000));
+        // a local link gets the minimum
+        assertEquals(ChannelWindow.MIN_SIZE, ChannelWindow.forRoundTrip(TimeUnit.MICROSECONDS.toNanos(200), 1000));
+    }
+}
@@ -0,0 +1,37 @@
+package hudson.plugins.sshslaves;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.trilead.ssh2.Connection;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ConnectionRegistryTest {
+
+    @Test
+    void gauges() {
+        ConnectionRegistry registry = new ConnectionRegistry();
+        Connection first = new Connection("a.example.invalid", 22);
+        Connection second = new Connection("a.example.invalid", 2222);
+        Connection third = new Connection("b.example.invalid", 22);
+        registry.register(first);
+        registry.register(first);
+        registry.register(second);
+        registry.register(third);
+
+        assertEquals(3, registry.getOpenCount());
+        assertEquals(Map.of("a.example.invalid", 2, "b.example.invalid", 1), registry.getCountsByHost());
+        assertEquals(
+                Map.of("< 1 hour", 3, "< 1 day", 0, "< 1 week", 0, "< 30 days", 0, ">= 30 days", 0),
+                registry.getAgeDistribution());
+        // never connected, so nothing was negotiated
+        assertEquals(Map.of("unknown", 3), registry.getKeyExchangeAlgorithms());
+
+        registry.unregister(second);
+        assertEquals(2, registry.getOpenCount());
+        assertEquals(2, registry.removeAll().size());
+        assertEquals(List.of(), registry.removeAll());
+        assertEquals(0, registry.getOpenCount());
+    }
+}
@@ -0,0 +1,78 @@
+package hudson.plugins.sshslaves;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class LaunchSchedulerTest {
+
+    @Test
+    void unlimited() throws Exception {
+        LaunchScheduler scheduler = new LaunchScheduler(0, 0);
+        LaunchScheduler.Permit first = scheduler.acquire("host");
+        LaunchScheduler.Permit second = scheduler.acquire("host");
+        assertEquals(2, scheduler.getRunning());
+        first.close();
+        second.close();
+        assertEquals(0, scheduler.getRunning());
+        assertEquals(2, scheduler.getLaunches());
+    }
+
+    @Test
+    void perHostLimit() throws Exception {
+        LaunchScheduler scheduler = new LaunchScheduler(0, 1);
+        LaunchScheduler.Permit first = scheduler.acquire("host");
+        // other hosts are not affected
+        scheduler.acquire("other").close();
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiting = new Thread(() -> {
+            try (LaunchScheduler.Permit permit = scheduler.acquire("host")) {
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiting.start();
+
+        assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+        assertEquals(1, scheduler.getQueueDepth());
+
+        first.close();
+        assertTrue(acquired.await(10, TimeUnit.SECONDS));
+        waiting.join();
+        assertEquals(0, scheduler.getQueueDepth());
+        assertEquals(0, scheduler.getRunning());
+        assertTrue(scheduler.getMaxWaitMillis() >= 200);
+    }
+
+    @Test
+    void globalLimit() throws Exception {
+        LaunchScheduler scheduler = new LaunchScheduler(1, 0);
+        LaunchScheduler.Permit first = scheduler.acquire("host");
+
+        Thread waiting = new Thread(() -> {
+            try {
+                scheduler.acquire("other").close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiting.start();
+        waiting.join(200);
+        assertTrue(waiting.isAlive());
+
+        // an interrupted launch does not keep anything
+        waiting.interrupt();
+        waiting.join();
+        assertEquals(0, scheduler.getQueueDepth());
+
+        first.close();
+        scheduler.acquire("other").close();
+        assertEquals(0, scheduler.getRunning());
+    }
+}
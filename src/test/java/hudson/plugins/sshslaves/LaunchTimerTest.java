@@ -0,0 +1,56 @@
+package hudson.plugins.sshslaves;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class LaunchTimerTest {
+
+    @Test
+    void nestedPhasesAreExcluded() throws Exception {
+        LaunchTimer timer = new LaunchTimer();
+        try (LaunchTimer.Split connect = timer.start(LaunchTimer.Phase.CONNECT)) {
+            try (LaunchTimer.Split hostKey = timer.start(LaunchTimer.Phase.HOST_KEY)) {
+                Thread.sleep(50);
+            }
+        }
+        timer.add(LaunchTimer.Phase.SLOT_WAIT, TimeUnit.MILLISECONDS.toNanos(7));
+
+        assertTrue(timer.getNanos(LaunchTimer.Phase.HOST_KEY) >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(timer.getNanos(LaunchTimer.Phase.CONNECT) < TimeUnit.MILLISECONDS.toNanos(50));
+        String phases = timer.toString();
+        assertTrue(phases.startsWith("slot wait 7 ms, connect "), phases);
+        assertTrue(phases.contains(", host key "), phases);
+        assertEquals(3, phases.split(", ").length, phases);
+
+        long count = LaunchTimer.getHistograms().get(LaunchTimer.Phase.HOST_KEY).getCount();
+        timer.record();
+        assertEquals(count + 1, LaunchTimer.getHistograms().get(LaunchTimer.Phase.HOST_KEY).getCount());
+    }
+
+    @Test
+    void histogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.get50thPercentileMillis());
+        for (int i = 0; i < 98; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        }
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(150));
+        histogram.record(TimeUnit.MINUTES.toNanos(10));
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(5, histogram.get50thPercentileMillis());
+        assertEquals(5, histogram.get95thPercentileMillis());
+        assertEquals(200, histogram.get99thPercentileMillis());
+        assertEquals(TimeUnit.MINUTES.toMillis(10), histogram.getPercentileMillis(1));
+        assertEquals(TimeUnit.MINUTES.toMillis(10), histogram.getMaxMillis());
+        long[] counts = histogram.getBucketCounts();
+        assertEquals(histogram.getBucketBoundsMillis().length + 1, counts.length);
+        assertEquals(98, counts[2]);
+        assertEquals(1, counts[counts.length - 1]);
+        assertArrayEquals(counts, histogram.getBucketCounts());
+    }
+}
@@ -0,0 +1,62 @@
+package hudson.plugins.sshslaves;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.trilead.ssh2.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class PluginImplTest {
+
+    @Test
+    void connectionsAreClosedInParallel() {
+        AtomicInteger closed = new AtomicInteger();
+        List<Connection> connections = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            connections.add(new Connection("host-" + i + ".example.invalid", 22) {
+                @Override
+                public void close() {
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    closed.incrementAndGet();
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        assertEquals(List.of(), PluginImpl.closeAll(connections, 16, TimeUnit.SECONDS.toMillis(30)));
+        assertEquals(16, closed.get());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+    }
+
+    @Test
+    void closingIsBounded() {
+        CountDownLatch release = new CountDownLatch(1);
+        Connection stuck = new Connection("stuck.example.invalid", 22) {
+            @Override
+            public void close() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        try {
+            long start = System.nanoTime();
+            List<Connection> connections = List.of(stuck, new Connection("a.example.invalid", 22));
+            assertEquals(List.of(stuck), PluginImpl.closeAll(connections, 2, 200));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+        } finally {
+            release.countDown();
+        }
+    }
+}
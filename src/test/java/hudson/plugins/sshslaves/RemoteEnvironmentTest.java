@@ -0,0 +1,60 @@
+package hudson.plugins.sshslaves;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class RemoteEnvironmentTest {
+
+    private static final String SET_OUTPUT = "HOME=/home/jenkins\n"
+            + "JAVA_HOME='/opt/java/openjdk'\n"
+            + "PATH=/usr/local/bin:/usr/bin:/bin\n"
+            + "PS1='\\u@\\h:\\w\\$ '\n"
+            + "greet () \n"
+            + "{ \n"
+            + "    HOME=/tmp;\n"
+            + "    echo hello\n"
+            + "}\n";
+
+    @Test
+    void allowlist() {
+        assertEquals(Set.of(), RemoteEnvironment.parseAllowlist(null));
+        assertEquals(Set.of(), RemoteEnvironment.parseAllowlist("  "));
+        assertEquals(
+                List.of("PATH", "JAVA_HOME", "HOME"),
+                List.copyOf(RemoteEnvironment.parseAllowlist(" PATH, JAVA_HOME\nHOME ")));
+    }
+
+    @Test
+    void filter() {
+        assertEquals(SET_OUTPUT, RemoteEnvironment.filter(SET_OUTPUT, Set.of()));
+        assertEquals(
+                "HOME=/home/jenkins\nJAVA_HOME='/opt/java/openjdk'\n",
+                RemoteEnvironment.filter(SET_OUTPUT, Set.of("HOME", "JAVA_HOME")));
+    }
+
+    @Test
+    void truncate() {
+        assertEquals(SET_OUTPUT, RemoteEnvironment.truncate(SET_OUTPUT, 0));
+        assertEquals(SET_OUTPUT, RemoteEnvironment.truncate(SET_OUTPUT, 100_000));
+        assertEquals("HOME=/home", RemoteEnvironment.truncate(SET_OUTPUT, 10));
+        // never cut a multi-byte character in half
+        String truncated = RemoteEnvironment.truncate("LANG=fr\nNAME=Hélène\n", 15);
+        assertEquals("LANG=fr\nNAME=H", truncated);
+        assertTrue(truncated.getBytes(StandardCharsets.UTF_8).length <= 15);
+    }
+
+    @Test
+    void parse() {
+        Map<String, String> variables = RemoteEnvironment.parse(SET_OUTPUT);
+        assertEquals(List.of("HOME", "JAVA_HOME", "PATH", "PS1"), List.copyOf(variables.keySet()));
+        assertEquals("/home/jenkins", variables.get("HOME"));
+        assertEquals("/opt/java/openjdk", variables.get("JAVA_HOME"));
+        assertEquals("\\u@\\h:\\w\\$ ", variables.get("PS1"));
+    }
+}
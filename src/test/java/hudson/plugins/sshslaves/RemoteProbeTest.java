@@ -0,0 +1,118 @@
+package hudson.plugins.sshslaves;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+class RemoteProbeTest {
+
+    private static final String MARKER = "SSHLauncher-test";
+    private static final String SHA256 = "98ea6e4f216f2fb4b69fff9b3a44842c38686ca685f3f55dc48c5d3fb1107be4";
+
+    @TempDir
+    private File temporaryFolder;
+
+    @Test
+    void parse() {
+        RemoteProbe probe = RemoteProbe.parse(MARKER, output(""));
+        assertNotNull(probe);
+        assertEquals("", probe.getHeaderJunk());
+        assertEquals("HOME=/home/jenkins\nPATH=/usr/bin:/bin\n", probe.getEnvironment());
+        assertEquals(RemoteProbe.WorkDirState.DIRECTORY, probe.getWorkDirState());
+        assertTrue(probe.isAgentJarPresent());
+        assertEquals(SHA256, probe.getAgentJarSha256());
+    }
+
+    @Test
+    void headerJunk() {
+        RemoteProbe probe = RemoteProbe.parse(MARKER, output("Welcome!\n"));
+        assertNotNull(probe);
+        assertEquals("Welcome!\n", probe.getHeaderJunk());
+    }
+
+    @Test
+    void trailerJunk() {
+        RemoteProbe probe = RemoteProbe.parse(MARKER, output("") + "Bye!\n");
+        assertNotNull(probe);
+        assertEquals("Bye!\n", probe.getHeaderJunk());
+
+        probe = RemoteProbe.parse(MARKER, output("Welcome!\n") + "Bye!\n");
+        assertNotNull(probe);
+        assertEquals("Welcome!\nBye!\n", probe.getHeaderJunk());
+    }
+
+    @Test
+    void incompleteOutput() {
+        String output = output("");
+        assertNull(RemoteProbe.parse(MARKER, output.substring(0, output.indexOf(MARKER + ":jar"))));
+        assertNull(RemoteProbe.parse(MARKER, "set: Syntax Error.\n"));
+        assertNull(RemoteProbe.parse("SSHLauncher-other", output));
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void runScript() throws Exception {
+        File workDir = new File(temporaryFolder, "agent");
+
+        RemoteProbe probe = run(workDir);
+        assertEquals("", probe.getHeaderJunk());
+        assertEquals(RemoteProbe.WorkDirState.MISSING, probe.getWorkDirState());
+        assertFalse(probe.isAgentJarPresent());
+
+        assertTrue(workDir.mkdirs());
+        Files.writeString(new File(workDir, SSHLauncher.AGENT_JAR).toPath(), "hi\n");
+        probe = run(workDir);
+        assertEquals(RemoteProbe.WorkDirState.DIRECTORY, probe.getWorkDirState());
+        assertTrue(probe.isAgentJarPresent());
+        assertEquals(SHA256, probe.getAgentJarSha256());
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void workingDirectoryIsNotExpanded() throws Exception {
+        File marker = new File(temporaryFolder, "expanded");
+        File workDir = new File(temporaryFolder, "a $(touch " + marker + ") `touch " + marker + "` 'b' $HOME");
+        assertTrue(workDir.mkdirs());
+        Files.writeString(new File(workDir, SSHLauncher.AGENT_JAR).toPath(), "hi\n");
+
+        RemoteProbe probe = run(workDir);
+        assertEquals(RemoteProbe.WorkDirState.DIRECTORY, probe.getWorkDirState());
+        assertEquals(SHA256, probe.getAgentJarSha256());
+        assertFalse(marker.exists());
+    }
+
+    private static RemoteProbe run(File workDir) throws Exception {
+        Process process = new ProcessBuilder("sh", "-c", RemoteProbe.script(MARKER, workDir.getPath(), true))
+                .redirectErrorStream(true)
+                .start();
+        String output = IOUtils.toString(process.getInputStream(), StandardCharsets.UTF_8);
+        assertEquals(0, process.waitFor());
+        RemoteProbe probe = RemoteProbe.parse(MARKER, output);
+        assertNotNull(probe, output);
+        return probe;
+    }
+
+    private static String output(String junk) {
+        return junk
+                + MARKER + ":begin\n"
+                + MARKER + ":env\n"
+                + "HOME=/home/jenkins\n"
+                + "PATH=/usr/bin:/bin\n"
+                + MARKER + ":workdir\n"
+                + "directory\n"
+                + MARKER + ":jar\n"
+                + SHA256 + "  /home/jenkins/remoting.jar\n"
+                + MARKER + ":end\n";
+    }
+}
@@ -0,0 +1,168 @@
+package hudson.plugins.sshslaves;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.AbortException;
+import hudson.plugins.sshslaves.retry.ConnectionRetryStrategy;
+import hudson.plugins.sshslaves.retry.ExponentialBackoffRetryStrategy;
+import hudson.plugins.sshslaves.retry.FixedDelayRetryStrategy;
+import hudson.plugins.sshslaves.verifiers.HostKeyRejectedException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the waits of {@link SSHLauncher#connectWithRetries} against a stand-in SSH server that refuses the first
+ * connections.
+ */
+class SSHLauncherConnectTest {
+
+    private static final long WAIT_MILLIS = 1000;
+
+    private final ByteArrayOutputStream log = new ByteArrayOutputStream();
+    private final PrintStream logger = new PrintStream(log, true, StandardCharsets.UTF_8);
+    private final List<Long> delays = new ArrayList<>();
+    private final LaunchScheduler scheduler = new LaunchScheduler(1, 1);
+
+    @Test
+    void noWaitAfterSuccessfulConnect() throws Exception {
+        FakeServer server = new FakeServer(0);
+        connect(server, 3, new FixedDelayRetryStrategy());
+        assertEquals(1, server.attempts);
+        assertEquals(List.of(), delays);
+    }
+
+    @Test
+    void oneWaitPerFailedAttempt() throws Exception {
+        FakeServer server = new FakeServer(1);
+        connect(server, 3, new FixedDelayRetryStrategy());
+        assertEquals(2, server.attempts);
+        assertEquals(List.of(WAIT_MILLIS), delays);
+        assertTrue(log().contains("There are 3 more retries left."));
+        assertFalse(log().contains("There are 2 more retries left."));
+    }
+
+    @Test
+    void noWaitAfterLastFailedAttempt() {
+        FakeServer server = new FakeServer(Integer.MAX_VALUE);
+        assertThrows(AbortException.class, () -> connect(server, 2, new FixedDelayRetryStrategy()));
+        assertEquals(3, server.attempts);
+        assertEquals(List.of(WAIT_MILLIS, WAIT_MILLIS), delays);
+    }
+
+    @Test
+    void waitsComeFromTheStrategy() throws Exception {
+        FakeServer server = new FakeServer(3);
+        connect(server, 3, new ExponentialBackoffRetryStrategy(3));
+        assertEquals(4, server.attempts);
+        assertEquals(List.of(WAIT_MILLIS, 2 * WAIT_MILLIS, 3 * WAIT_MILLIS), delays);
+    }
+
+    @Test
+    void rejectedHostKeyIsNotRetried() {
+        AbortException e = assertThrows(
+                AbortException.class,
+                () -> SSHLauncher.connectWithRetries(
+                        logger,
+                        3,
+                        WAIT_MILLIS,
+                        new ExponentialBackoffRetryStrategy(60),
+                        this::acquire,
+                        () -> {
+                            throw new HostKeyRejectedException("host key rejected", new IOException());
+                        },
+                        delays::add));
+        assertTrue(e.getMessage().contains("host key rejected"));
+        assertEquals(List.of(), delays);
+        assertEquals(0, scheduler.getRunning());
+    }
+
+    @Test
+    void rejectedHostKeyIsRetriedWithFixedDelay() throws Exception {
+        int[] attempts = new int[1];
+        LaunchScheduler.Permit permit = SSHLauncher.connectWithRetries(
+                logger,
+                3,
+                WAIT_MILLIS,
+                new FixedDelayRetryStrategy(),
+                this::acquire,
+                () -> {
+                    if (attempts[0]++ == 0) {
+                        throw new HostKeyRejectedException("host key rejected", new IOException());
+                    }
+                },
+                delays::add);
+        permit.close();
+        assertEquals(2, attempts[0]);
+        assertEquals(List.of(WAIT_MILLIS), delays);
+        assertTrue(log().contains("There are 3 more retries left."));
+    }
+
+    @Test
+    void slotIsNotHeldWhileWaiting() throws Exception {
+        FakeServer server = new FakeServer(2);
+        List<Integer> running = new ArrayList<>();
+        LaunchScheduler.Permit permit = SSHLauncher.connectWithRetries(
+                logger,
+                3,
+                WAIT_MILLIS,
+                new FixedDelayRetryStrategy(),
+                this::acquire,
+                server,
+                millis -> running.add(scheduler.getRunning()));
+        assertEquals(List.of(0, 0), running);
+        assertEquals(3, scheduler.getLaunches());
+        assertEquals(1, scheduler.getRunning());
+        permit.close();
+        assertEquals(0, scheduler.getRunning());
+    }
+
+    @Test
+    void slotIsReleasedAfterTheLastFailedAttempt() {
+        FakeServer server = new FakeServer(Integer.MAX_VALUE);
+        assertThrows(AbortException.class, () -> connect(server, 1, new FixedDelayRetryStrategy()));
+        assertEquals(2, scheduler.getLaunches());
+        assertEquals(0, scheduler.getRunning());
+    }
+
+    private void connect(FakeServer server, int maxNumRetries, ConnectionRetryStrategy strategy) throws Exception {
+        LaunchScheduler.Permit permit = SSHLauncher.connectWithRetries(
+                logger, maxNumRetries, WAIT_MILLIS, strategy, this::acquire, server, delays::add);
+        permit.close();
+    }
+
+    private LaunchScheduler.Permit acquire() throws InterruptedException {
+        return scheduler.acquire("host.example.invalid");
+    }
+
+    private String log() {
+        return log.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Refuses the given number of connections, then accepts them.
+     */
+    private static final class FakeServer implements SSHLauncher.ConnectAttempt {
+        private final int refusals;
+        private int attempts;
+
+        FakeServer(int refusals) {
+            this.refusals = refusals;
+        }
+
+        @Override
+        public void connect() throws IOException {
+            if (attempts++ < refusals) {
+                throw new IOException("There was a problem", new ConnectException("Connection refused"));
+            }
+        }
+    }
+}
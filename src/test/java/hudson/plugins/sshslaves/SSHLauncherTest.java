@@ -356,6 +356,13 @@ class SSHLauncherTest {
         assertEquals(SSHLauncher.DEFAULT_RETRY_WAIT_TIME, launcher2.getRetryWaitTime());
     }
 
+    @Test
+    void shellQuote() {
+        assertEquals("'/home/jenkins'", SSHLauncher.shellQuote("/home/jenkins"));
+        assertEquals("'/tmp/$HOME/`id`/\"x\"'", SSHLauncher.shellQuote("/tmp/$HOME/`id`/\"x\""));
+        assertEquals("'/tmp/it'\\''s'", SSHLauncher.shellQuote("/tmp/it's"));
+    }
+
     @Test
     void getMd5Hash() throws Exception {
         byte[] bytes = "Leave me alone!".getBytes();
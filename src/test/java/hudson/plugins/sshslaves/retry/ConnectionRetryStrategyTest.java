@@ -0,0 +1,72 @@
+package hudson.plugins.sshslaves.retry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.AbortException;
+import hudson.plugins.sshslaves.verifiers.HostKeyRejectedException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import org.junit.jupiter.api.Test;
+
+class ConnectionRetryStrategyTest {
+
+    @Test
+    void fixedDelay() {
+        ConnectionRetryStrategy strategy = new FixedDelayRetryStrategy();
+        assertEquals(15000, strategy.getDelayMillis(1, 15000, 15000));
+        assertEquals(15000, strategy.getDelayMillis(10, 15000, 15000));
+    }
+
+    @Test
+    void exponentialBackoffDoublesUpToTheCap() {
+        ConnectionRetryStrategy strategy = new ExponentialBackoffRetryStrategy(60);
+        assertEquals(15000, strategy.getDelayMillis(1, 15000, 15000));
+        assertEquals(30000, strategy.getDelayMillis(2, 15000, 15000));
+        assertEquals(60000, strategy.getDelayMillis(3, 15000, 30000));
+        assertEquals(60000, strategy.getDelayMillis(100, 15000, 60000));
+    }
+
+    @Test
+    void decorrelatedJitterStaysWithinBounds() {
+        ConnectionRetryStrategy strategy = new DecorrelatedJitterRetryStrategy(120);
+        long delay = 15000;
+        boolean spread = false;
+        for (int retry = 1; retry <= 100; retry++) {
+            long next = strategy.getDelayMillis(retry, 15000, delay);
+            assertTrue(next >= 15000, "below the base wait: " + next);
+            assertTrue(next <= Math.min(120000, delay * 3), "above the bound: " + next);
+            spread |= next != 15000;
+            delay = next;
+        }
+        assertTrue(spread);
+    }
+
+    @Test
+    void capBelowTheBaseWait() {
+        assertEquals(5000, new ExponentialBackoffRetryStrategy(5).getDelayMillis(1, 15000, 15000));
+        assertEquals(5000, new DecorrelatedJitterRetryStrategy(5).getDelayMillis(1, 15000, 15000));
+    }
+
+    @Test
+    void classification() {
+        ConnectionRetryStrategy strategy = new FixedDelayRetryStrategy();
+        assertTrue(strategy.isRetryable(new IOException("There was a problem", new ConnectException("refused"))));
+        assertTrue(strategy.isRetryable(new IOException(new SocketTimeoutException("timeout"))));
+        assertTrue(strategy.isRetryable(new UnknownHostException("nowhere")));
+        assertTrue(strategy.isRetryable(new HostKeyRejectedException("rejected", new IOException())));
+        assertTrue(strategy.isRetryable(new IOException(new AbortException("aborted"))));
+        assertFalse(strategy.isRetryable(new IOException(new InterruptedIOException("interrupted"))));
+
+        strategy = new ExponentialBackoffRetryStrategy(60);
+        assertTrue(strategy.isRetryable(new IOException("There was a problem", new ConnectException("refused"))));
+        assertTrue(strategy.isRetryable(new IOException(new SocketTimeoutException("timeout"))));
+        assertFalse(strategy.isRetryable(new HostKeyRejectedException("rejected", new IOException())));
+        assertFalse(strategy.isRetryable(new IOException(new AbortException("aborted"))));
+        assertFalse(strategy.isRetryable(new IOException(new InterruptedIOException("interrupted"))));
+    }
+}
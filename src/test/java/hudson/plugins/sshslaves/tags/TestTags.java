@@ -6,6 +6,7 @@ public final class TestTags {
     public static final String SSH_HOST_KEY_TEST = "SSHHostKeyTest";
     public static final String SSH_KEX_TEST = "SSHKexTest";
     public static final String SSH_KEY_AUTHENTICATION_TEST = "SSHKeyAuthenticationTest";
+    public static final String BENCHMARK = "Benchmark";
 
     private TestTags() {
         // hidden
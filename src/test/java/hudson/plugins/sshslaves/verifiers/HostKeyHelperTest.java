@@ -0,0 +1,99 @@
+package hudson.plugins.sshslaves.verifiers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.slaves.DumbSlave;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class HostKeyHelperTest {
+
+    @Test
+    void keyIsReadOnce(JenkinsRule j) throws Exception {
+        DumbSlave agent = j.createSlave();
+        Computer computer = agent.toComputer();
+        HostKeyHelper helper = HostKeyHelper.getInstance();
+        HostKey key = new HostKey("ssh-rsa", "key".getBytes(StandardCharsets.US_ASCII));
+        helper.saveHostKey(computer, key);
+        helper.invalidate(agent.getNodeName());
+
+        long misses = helper.getMisses();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<HostKey>> lookups = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                lookups.add(() -> helper.getHostKey(computer));
+            }
+            for (Future<HostKey> lookup : executor.invokeAll(lookups)) {
+                assertEquals(key, lookup.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(misses + 1, helper.getMisses());
+    }
+
+    @Test
+    void missingKeyIsRemembered(JenkinsRule j) throws Exception {
+        DumbSlave agent = j.createSlave();
+        Computer computer = agent.toComputer();
+        HostKeyHelper helper = HostKeyHelper.getInstance();
+
+        long misses = helper.getMisses();
+        assertNull(helper.getHostKey(computer));
+        assertNull(helper.getHostKey(computer));
+        assertEquals(misses + 1, helper.getMisses());
+
+        HostKey key = new HostKey("ssh-rsa", "key".getBytes(StandardCharsets.US_ASCII));
+        helper.saveHostKey(computer, key);
+        assertSame(key, helper.getHostKey(computer));
+        assertEquals(misses + 1, helper.getMisses());
+    }
+
+    @Test
+    void removedNodeIsForgotten(JenkinsRule j) throws Exception {
+        DumbSlave agent = j.createSlave();
+        Computer computer = agent.toComputer();
+        HostKeyHelper helper = HostKeyHelper.getInstance();
+        helper.saveHostKey(computer, new HostKey("ssh-rsa", "key".getBytes(StandardCharsets.US_ASCII)));
+        int size = helper.getSize();
+
+        j.jenkins.removeNode(agent);
+        assertEquals(size - 1, helper.getSize());
+    }
+
+    @Test
+    void preload(JenkinsRule j) throws Exception {
+        HostKeyHelper helper = HostKeyHelper.getInstance();
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            DumbSlave agent = j.createSlave();
+            if (i > 0) {
+                helper.saveHostKey(
+                        agent.toComputer(), new HostKey("ssh-rsa", ("key" + i).getBytes(StandardCharsets.US_ASCII)));
+            }
+            helper.invalidate(agent.getNodeName());
+            nodes.add(agent);
+        }
+
+        assertEquals(2, HostKeyPreloader.preload(helper, nodes, 4));
+        long misses = helper.getMisses();
+        for (Node node : nodes) {
+            helper.getHostKey(node.toComputer());
+        }
+        assertEquals(misses, helper.getMisses());
+    }
+}
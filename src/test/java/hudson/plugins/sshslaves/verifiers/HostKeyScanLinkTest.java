@@ -0,0 +1,86 @@
+package hudson.plugins.sshslaves.verifiers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.ExtensionList;
+import hudson.plugins.sshslaves.SSHLauncher;
+import hudson.slaves.DumbSlave;
+import hudson.slaves.RetentionStrategy;
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class HostKeyScanLinkTest {
+
+    @TempDir
+    private File temporaryFolder;
+
+    @Test
+    void scanAndTrust(JenkinsRule j) throws Exception {
+        SshServer sshd = SshServer.setUpDefaultServer();
+        sshd.setHost("localhost");
+        sshd.setPort(0);
+        sshd.setKeyPairProvider(new SimpleGeneratorHostKeyProvider());
+        sshd.start();
+        try {
+            SSHLauncher launcher = new SSHLauncher("localhost", sshd.getPort(), "dummyCredentialId");
+            launcher.setSshHostKeyVerificationStrategy(new ManuallyTrustedKeyVerificationStrategy(true));
+            DumbSlave agent = new DumbSlave("scanned", temporaryFolder.getAbsolutePath(), launcher);
+            agent.setRetentionStrategy(RetentionStrategy.NOOP);
+            j.jenkins.addNode(agent);
+
+            HostKey direct = HostKeyScanner.scan("localhost", sshd.getPort(), null, 10_000);
+            assertNotNull(direct.getAlgorithm());
+
+            HostKeyScanLink link = ExtensionList.lookupSingleton(HostKeyScanLink.class);
+            link.doScan();
+            HostKeyScanLink.Scan scan = link.getScan();
+            assertNotNull(scan);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (!scan.isDone() && System.nanoTime() < deadline) {
+                Thread.sleep(100);
+            }
+            assertTrue(scan.isDone());
+            assertEquals(1, scan.getTotal());
+
+            List<HostKeyScanLink.Result> results = new ArrayList<>(scan.getResults());
+            assertEquals(1, results.size());
+            HostKeyScanLink.Result result = results.get(0);
+            assertEquals("scanned", result.getNodeName());
+            assertNotNull(result.getHostKey(), result.getError());
+            assertNull(result.getTrustedKey());
+            assertFalse(result.isTrusted());
+            j.createWebClient().goTo("manage/sshHostKeys");
+
+            scan.trust("scanned");
+            assertEquals(result.getHostKey(), HostKeyHelper.getInstance().getHostKey(agent.toComputer()));
+            assertTrue(scan.getResults().iterator().next().isTrusted());
+        } finally {
+            sshd.stop(true);
+        }
+    }
+
+    @Test
+    void scanFailsWhenNobodyListens() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        assertThrows(IOException.class, () -> HostKeyScanner.scan("localhost", port, null, 5_000));
+    }
+}
@@ -1,8 +1,15 @@
 package hudson.plugins.sshslaves.verifiers;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Base64;
 import org.junit.jupiter.api.Test;
 
@@ -39,4 +46,29 @@ class HostKeyTest {
         // Should match pattern: SHA256:[Base64]
         assertTrue(fingerprint.matches("SHA256:[A-Za-z0-9+/=]+"), "Fingerprint should match SHA256:Base64 format");
     }
+
+    @Test
+    void fingerprintIsComputedOnce() {
+        HostKey hostKey = new HostKey("ssh-rsa", "test-key-data".getBytes());
+        assertSame(hostKey.getFingerprint(), hostKey.getFingerprint());
+    }
+
+    @Test
+    void equalKeysAreInterned() throws Exception {
+        HostKey first = new HostKey("ssh-rsa", "interned-key-data".getBytes()).intern();
+        HostKey second = new HostKey("ssh-rsa", "interned-key-data".getBytes());
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertSame(first, second.intern());
+        assertNotEquals(first, new HostKey("ssh-ed25519", "interned-key-data".getBytes()));
+        assertNotEquals(first, new HostKey("ssh-rsa", "other-key-data".getBytes()));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(second);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertSame(first, in.readObject());
+        }
+    }
 }
@@ -0,0 +1,230 @@
+package hudson.plugins.sshslaves.verifiers;
+
+import static hudson.plugins.sshslaves.tags.TestTags.BENCHMARK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.trilead.ssh2.KnownHosts;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class KnownHostsIndexTest {
+
+    private static final int HOSTS = 20_000;
+
+    private static byte[] key;
+    private static byte[] otherKey;
+
+    @TempDir
+    private Path tmp;
+
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        key = encode((RSAPublicKey) generator.generateKeyPair().getPublic());
+        otherKey = encode((RSAPublicKey) generator.generateKeyPair().getPublic());
+    }
+
+    @Test
+    void sameResultsAsTrilead() throws Exception {
+        File file = write(
+                line("plain.example.invalid,10.0.0.1", key),
+                line("[ported.example.invalid]:2222", key),
+                line("ported.example.invalid:2222", key),
+                line(hash("hashed.example.invalid"), key),
+                line("*.wild.example.invalid", key),
+                line("!bad.wild.example.invalid,*.wild.example.invalid", otherKey),
+                line("changed.example.invalid", otherKey),
+                "# a comment",
+                "@revoked revoked.example.invalid ssh-rsa " + Base64.getEncoder().encodeToString(key),
+                "unsupported.example.invalid ssh-unknown " + Base64.getEncoder().encodeToString(key));
+
+        KnownHosts knownHosts = new KnownHosts(file);
+        KnownHostsIndex.Snapshot index = KnownHostsIndex.of(file).get();
+        for (String host : new String[] {
+            "plain.example.invalid",
+            "PLAIN.example.invalid",
+            "ported.example.invalid:2222",
+            "ported.example.invalid",
+            "hashed.example.invalid",
+            "a.wild.example.invalid",
+            "bad.wild.example.invalid",
+            "changed.example.invalid",
+            "unknown.example.invalid",
+            "revoked.example.invalid"
+        }) {
+            for (byte[] presented : new byte[][] {key, otherKey}) {
+                assertEquals(
+                        knownHosts.verifyHostkey(host, "ssh-rsa", presented),
+                        index.verifyHostkey(host, presented),
+                        host);
+            }
+        }
+    }
+
+    @Test
+    void knownAlgorithms() throws Exception {
+        String ed25519 = "ssh-ed25519 " + Base64.getEncoder().encodeToString(new byte[32]);
+        List<KnownHostsIndex.Snapshot> files = List.of(KnownHostsIndex.of(write(
+                        line("plain.example.invalid", key),
+                        "plain.example.invalid " + ed25519,
+                        "ported.example.invalid:2222 " + ed25519))
+                .get());
+
+        assertEquals(
+                List.of("ssh-rsa", "ssh-ed25519"),
+                new ArrayList<>(KnownHostsIndex.getKnownAlgorithms(files, List.of("plain.example.invalid"))));
+        assertEquals(
+                List.of("ssh-ed25519"),
+                new ArrayList<>(KnownHostsIndex.getKnownAlgorithms(
+                        files, List.of("ported.example.invalid", "ported.example.invalid:2222"))));
+        assertEquals(
+                List.of(),
+                new ArrayList<>(KnownHostsIndex.getKnownAlgorithms(
+                        files, List.of("unknown.example.invalid", "unknown.example.invalid:2222"))));
+    }
+
+    @Test
+    void severalFiles() throws Exception {
+        List<KnownHostsIndex.Snapshot> files = List.of(
+                KnownHostsIndex.of(write(line("a.example.invalid", otherKey))).get(),
+                KnownHostsIndex.of(write(line(hash("a.example.invalid"), key), line("b.example.invalid", key)))
+                        .get());
+        assertEquals(KnownHosts.HOSTKEY_IS_OK, KnownHostsIndex.verifyHostkey(files, "a.example.invalid", key));
+        assertEquals(KnownHosts.HOSTKEY_IS_OK, KnownHostsIndex.verifyHostkey(files, "b.example.invalid", key));
+        assertEquals(
+                KnownHosts.HOSTKEY_HAS_CHANGED, KnownHostsIndex.verifyHostkey(files, "b.example.invalid", otherKey));
+        assertEquals(KnownHosts.HOSTKEY_IS_NEW, KnownHostsIndex.verifyHostkey(files, "c.example.invalid", key));
+    }
+
+    @Test
+    void strategyFiles() {
+        KnownHostsFileKeyVerificationStrategy strategy = new KnownHostsFileKeyVerificationStrategy();
+        assertEquals(List.of(strategy.getKnownHostsFile()), strategy.getKnownHostsFileList());
+
+        assertEquals(
+                List.of(new File("/a/known_hosts"), new File("/b/known_hosts")),
+                KnownHostsFileKeyVerificationStrategy.parse(
+                        " /a/known_hosts" + File.pathSeparator + File.pathSeparator + "/b/known_hosts ",
+                        File.pathSeparator));
+        assertEquals(
+                List.of(new File(KnownHostsFileKeyVerificationStrategy.KNOWN_HOSTS_DEFAULT)),
+                KnownHostsFileKeyVerificationStrategy.parse("  ", File.pathSeparator));
+    }
+
+    @Test
+    void reloadedWhenTheFileChanges() throws Exception {
+        File file = write(line("host.example.invalid", key));
+        KnownHostsIndex index = KnownHostsIndex.of(file);
+        KnownHostsIndex.Snapshot first = index.get();
+        assertSame(first, index.get());
+        assertEquals(KnownHosts.HOSTKEY_IS_OK, first.verifyHostkey("host.example.invalid", key));
+
+        Files.writeString(file.toPath(), line("host.example.invalid", otherKey) + "\n", StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(file.lastModified() + 1000));
+        KnownHostsIndex.Snapshot second = index.get();
+        assertNotSame(first, second);
+        assertEquals(KnownHosts.HOSTKEY_HAS_CHANGED, second.verifyHostkey("host.example.invalid", key));
+        assertEquals(2, index.getLoads());
+
+        Files.delete(file.toPath());
+        assertNull(index.get());
+    }
+
+    /**
+     * Compares the cost of the host key checks of a launch, parsing the file each time as before, with the index.
+     * Not part of the default build, run it with
+     * {@code mvn test -Dtest=KnownHostsIndexTest#benchmark -DexcludedGroups= -Dgroups=Benchmark}.
+     */
+    @Test
+    @Tag(BENCHMARK)
+    void benchmark() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < HOSTS; i++) {
+            lines.add(line("host-" + i + ".example.invalid", key));
+            lines.add(line(hash("hashed-" + i + ".example.invalid"), key));
+        }
+        File file = write(lines.toArray(new String[0]));
+        String host = "host-" + (HOSTS / 2) + ".example.invalid";
+
+        int parsedLaunches = 10;
+        long start = System.nanoTime();
+        for (int i = 0; i < parsedLaunches; i++) {
+            assertEquals(KnownHosts.HOSTKEY_IS_OK, new KnownHosts(file).verifyHostkey(host, "ssh-rsa", key));
+            new KnownHosts(file).verifyHostkey(host + ":22", "ssh-rsa", key);
+            new KnownHosts(file).getPreferredServerHostkeyAlgorithmOrder(host);
+        }
+        long parsed = (System.nanoTime() - start) / parsedLaunches;
+
+        KnownHostsIndex index = KnownHostsIndex.of(file);
+        index.get();
+        int indexedLaunches = 1000;
+        start = System.nanoTime();
+        for (int i = 0; i < indexedLaunches; i++) {
+            KnownHostsIndex.Snapshot snapshot = index.get();
+            assertEquals(KnownHosts.HOSTKEY_IS_OK, snapshot.verifyHostkey(host, key));
+            snapshot.verifyHostkey(host + ":22", key);
+            KnownHostsIndex.getKnownAlgorithms(List.of(snapshot), List.of(host, host + ":22"));
+        }
+        long indexed = (System.nanoTime() - start) / indexedLaunches;
+
+        System.out.printf(
+                "known_hosts with %d entries: %d µs per launch parsing the file, %d µs per launch with the index%n",
+                lines.size(), parsed / 1000, indexed / 1000);
+        assertEquals(1, index.getLoads());
+    }
+
+    private File write(String... lines) throws IOException {
+        Path path = Files.createTempFile(tmp, "known_hosts", "");
+        Files.write(path, List.of(lines), StandardCharsets.UTF_8);
+        return path.toFile();
+    }
+
+    private static String line(String hosts, byte[] key) {
+        return hosts + " ssh-rsa " + Base64.getEncoder().encodeToString(key);
+    }
+
+    private static String hash(String host) throws Exception {
+        byte[] salt = new byte[20];
+        new SecureRandom().nextBytes(salt);
+        Mac mac = Mac.getInstance("HmacSHA1");
+        mac.init(new SecretKeySpec(salt, "HmacSHA1"));
+        byte[] hash = mac.doFinal(host.getBytes(StandardCharsets.ISO_8859_1));
+        return "|1|" + Base64.getEncoder().encodeToString(salt) + "|" + Base64.getEncoder().encodeToString(hash);
+    }
+
+    private static byte[] encode(RSAPublicKey publicKey) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, "ssh-rsa".getBytes(StandardCharsets.US_ASCII));
+        writeString(out, publicKey.getPublicExponent().toByteArray());
+        writeString(out, publicKey.getModulus().toByteArray());
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, byte[] value) throws IOException {
+        out.writeInt(value.length);
+        out.write(value);
+    }
+}
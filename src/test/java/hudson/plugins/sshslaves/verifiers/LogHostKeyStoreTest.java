@@ -0,0 +1,162 @@
+package hudson.plugins.sshslaves.verifiers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogHostKeyStoreTest {
+
+    @TempDir
+    private Path tmp;
+
+    @Test
+    void keysSurviveARestart() throws Exception {
+        File file = tmp.resolve("ssh-host-keys.log").toFile();
+        LogHostKeyStore store = new LogHostKeyStore(file, null);
+        store.save("a", key("a1"));
+        store.save("b", key("b1"));
+        store.save("a", key("a2"));
+        store.save("c", key("c1"));
+        store.remove("c");
+        store.rename("b", "d");
+
+        LogHostKeyStore reopened = new LogHostKeyStore(file, null);
+        assertEquals(key("a2"), reopened.load("a"));
+        assertNull(reopened.load("b"));
+        assertNull(reopened.load("c"));
+        assertEquals(key("b1"), reopened.load("d"));
+        assertEquals(5, reopened.getDeadRecords());
+    }
+
+    @Test
+    void truncatedRecordIsDropped() throws Exception {
+        File file = tmp.resolve("ssh-host-keys.log").toFile();
+        LogHostKeyStore store = new LogHostKeyStore(file, null);
+        store.save("a", key("a1"));
+        store.save("b", key("b1"));
+        long length = file.length();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length - 3);
+        }
+
+        LogHostKeyStore reopened = new LogHostKeyStore(file, null);
+        assertEquals(key("a1"), reopened.load("a"));
+        assertNull(reopened.load("b"));
+        reopened.save("b", key("b2"));
+        assertEquals(key("b2"), new LogHostKeyStore(file, null).load("b"));
+    }
+
+    @Test
+    void invalidRecordsAreDropped() throws Exception {
+        File file = tmp.resolve("ssh-host-keys.log").toFile();
+        LogHostKeyStore store = new LogHostKeyStore(file, null);
+        store.save("a", key("a1"));
+        store.close();
+        long length = file.length();
+
+        // a key length larger than the file
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file, true))) {
+            out.writeByte(1);
+            out.writeUTF("b");
+            out.writeUTF("ssh-ed25519");
+            out.writeInt(Integer.MAX_VALUE);
+            out.write(new byte[16]);
+        }
+        LogHostKeyStore reopened = new LogHostKeyStore(file, null);
+        assertEquals(key("a1"), reopened.load("a"));
+        assertNull(reopened.load("b"));
+        assertEquals(length, file.length());
+
+        // an unknown record type followed by a valid record
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file, true))) {
+            out.writeByte(42);
+            out.writeUTF("c");
+            out.writeByte(2);
+            out.writeUTF("a");
+        }
+        reopened = new LogHostKeyStore(file, null);
+        assertEquals(key("a1"), reopened.load("a"));
+        assertEquals(length, file.length());
+        reopened.save("c", key("c1"));
+        reopened.close();
+        assertEquals(key("c1"), new LogHostKeyStore(file, null).load("c"));
+    }
+
+    @Test
+    void compaction() throws Exception {
+        File file = tmp.resolve("ssh-host-keys.log").toFile();
+        LogHostKeyStore store = new LogHostKeyStore(file, null);
+        for (int i = 0; i <= LogHostKeyStore.MIN_DEAD_RECORDS_TO_COMPACT; i++) {
+            store.save("a", key("a" + i));
+        }
+        assertEquals(0, store.getDeadRecords());
+        long compacted = file.length();
+        store.save("b", key("b"));
+        assertTrue(file.length() > compacted);
+
+        LogHostKeyStore reopened = new LogHostKeyStore(file, null);
+        assertEquals(key("a" + LogHostKeyStore.MIN_DEAD_RECORDS_TO_COMPACT), reopened.load("a"));
+        assertEquals(key("b"), reopened.load("b"));
+    }
+
+    @Test
+    void migration() throws Exception {
+        MapHostKeyStore xml = new MapHostKeyStore();
+        xml.save("a", key("a1"));
+        File file = tmp.resolve("ssh-host-keys.log").toFile();
+        LogHostKeyStore store = new LogHostKeyStore(file, xml);
+
+        assertEquals(key("a1"), store.load("a"));
+        assertNull(store.load("b"));
+        assertEquals(key("a1"), new LogHostKeyStore(file, null).load("a"));
+
+        store.remove("a");
+        assertNull(xml.load("a"));
+        assertNull(store.load("a"));
+
+        // the previous store is not updated, so it must not keep the replaced key either
+        xml.save("b", key("b1"));
+        assertEquals(key("b1"), store.load("b"));
+        store.save("b", key("b2"));
+        assertNull(xml.load("b"));
+        assertEquals(key("b2"), store.load("b"));
+    }
+
+    private static HostKey key(String value) {
+        return new HostKey("ssh-ed25519", value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static class MapHostKeyStore implements HostKeyStore {
+
+        private final Map<String, HostKey> keys = new HashMap<>();
+
+        @CheckForNull
+        @Override
+        public HostKey load(@NonNull String nodeName) {
+            return keys.get(nodeName);
+        }
+
+        @Override
+        public void save(@NonNull String nodeName, @NonNull HostKey hostKey) {
+            keys.put(nodeName, hostKey);
+        }
+
+        @Override
+        public void remove(@NonNull String nodeName) {
+            keys.remove(nodeName);
+        }
+    }
+}
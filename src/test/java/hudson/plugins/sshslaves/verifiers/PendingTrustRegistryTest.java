@@ -0,0 +1,80 @@
+package hudson.plugins.sshslaves.verifiers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import hudson.model.Computer;
+import hudson.slaves.DumbSlave;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class PendingTrustRegistryTest {
+
+    @Test
+    void concurrentRequestsShareOneAction(JenkinsRule j) throws Exception {
+        DumbSlave agent = j.createSlave();
+        Computer computer = agent.toComputer();
+        PendingTrustRegistry registry = PendingTrustRegistry.get();
+        HostKey key = new HostKey("ssh-rsa", "key".getBytes(StandardCharsets.US_ASCII));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<TrustHostKeyAction>> requests = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                requests.add(() -> registry.request(computer, key));
+            }
+            TrustHostKeyAction first = null;
+            for (Future<TrustHostKeyAction> request : executor.invokeAll(requests)) {
+                if (first == null) {
+                    first = request.get();
+                }
+                assertSame(first, request.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, computer.getActions(TrustHostKeyAction.class).size());
+
+        HostKey other = new HostKey("ssh-rsa", "other".getBytes(StandardCharsets.US_ASCII));
+        registry.request(computer, other);
+        assertEquals(2, computer.getActions(TrustHostKeyAction.class).size());
+    }
+
+    @Test
+    void answeredActionIsRemoved(JenkinsRule j) throws Exception {
+        DumbSlave agent = j.createSlave();
+        Computer computer = agent.toComputer();
+        PendingTrustRegistry registry = PendingTrustRegistry.get();
+        HostKey key = new HostKey("ssh-rsa", "key".getBytes(StandardCharsets.US_ASCII));
+
+        TrustHostKeyAction action = registry.request(computer, key);
+        registry.complete(action);
+        assertEquals(0, computer.getActions(TrustHostKeyAction.class).size());
+        assertNotSame(action, registry.request(computer, key));
+
+        registry.trusted(agent.getNodeName(), key);
+        assertEquals(0, computer.getActions(TrustHostKeyAction.class).size());
+    }
+
+    @Test
+    void deletedNodeIsForgotten(JenkinsRule j) throws Exception {
+        DumbSlave agent = j.createSlave();
+        PendingTrustRegistry registry = PendingTrustRegistry.get();
+        int size = registry.size();
+        registry.request(agent.toComputer(), new HostKey("ssh-rsa", "key".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(size + 1, registry.size());
+
+        j.jenkins.removeNode(agent);
+        assertEquals(size, registry.size());
+    }
+}
@@ -1,7 +1,10 @@
 package hudson.plugins.sshslaves.verifiers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import java.io.IOException;
 import java.lang.reflect.Method;
@@ -52,6 +55,16 @@ class TrileadVersionSupportManagerTest {
                 TrileadVersionSupportManager.getTrileadSupport().getClass());
     }
 
+    @Test
+    void testInstanceIsCreatedOnce() {
+        TrileadVersionSupportManager.TrileadVersionSupport support = TrileadVersionSupportManager.getTrileadSupport();
+        assertSame(support, TrileadVersionSupportManager.getTrileadSupport());
+
+        String[] algorithms = support.getSupportedAlgorithms();
+        assertNotSame(algorithms, support.getSupportedAlgorithms());
+        assertArrayEquals(algorithms, support.getSupportedAlgorithms());
+    }
+
     @Test
     @Issue("JENKINS-44893")
     void testCurrentInstanceWithIsolatedClassLoader() {